@@ -36,6 +36,12 @@ public class Camera {
 
     }
 
+    /** Also moves the camera to the head position reported by the desktop tracker. */
+    public void update(HeadTransform paramHeadTransform, Vector3 headPosition) {
+        update(paramHeadTransform);
+        camera.position.set(headPosition);
+    }
+
     public void updateEye(Eye eye) {
         currentMatrix.set(eye.getEyeView());
         camera.setEyeViewAdjustMatrix(currentMatrix);
@@ -13,6 +13,7 @@ import com.badlogic.gdx.graphics.GL20;
 import com.badlogic.gdx.graphics.Mesh;
 import com.badlogic.gdx.graphics.VertexAttribute;
 import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Vector3;
 import com.google.vrtoolkit.cardboard.Eye;
 import com.google.vrtoolkit.cardboard.HeadTransform;
 import com.pedro.vlc.VlcListener;
@@ -132,8 +133,8 @@ public class CameraRenderer {
         return b.toString();
     }
 
-    public void update(HeadTransform transform) {
-        worldCamera.update(transform);
+    public void update(HeadTransform transform, Vector3 headPosition) {
+        worldCamera.update(transform, headPosition);
     }
 
     public void drawEye(Eye eye) {
@@ -10,10 +10,13 @@ import com.badlogic.gdx.backends.android.AndroidApplicationConfiguration;
 import com.badlogic.gdx.backends.android.CardBoardAndroidApplication;
 import com.badlogic.gdx.backends.android.CardBoardApplicationListener;
 import com.badlogic.gdx.graphics.GL20;
+import com.badlogic.gdx.math.Vector3;
 import com.google.vrtoolkit.cardboard.Eye;
 import com.google.vrtoolkit.cardboard.HeadTransform;
 import com.google.vrtoolkit.cardboard.Viewport;
 
+import java.net.InetSocketAddress;
+
 import javax.microedition.khronos.opengles.GL10;
 
 import static com.badlogic.gdx.graphics.GL20.GL_ONE_MINUS_SRC_ALPHA;
@@ -22,7 +25,13 @@ import static com.badlogic.gdx.graphics.GL20.GL_SRC_ALPHA;
 public class CardboardGameAdapter extends CardBoardAndroidApplication
         implements CardBoardApplicationListener {
 
+    /** Intent extra naming the host running the desktop tracker. */
+    public static final String EXTRA_TRACKER_HOST = "tracker_host";
+    public static final int TRACKER_PORT = 6789;
+
     private CameraRenderer cameraRenderer;
+    private PoseStreamClient poseStream;
+    private final Vector3 headPosition = new Vector3();
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -37,6 +46,16 @@ public class CardboardGameAdapter extends CardBoardAndroidApplication
     @Override
     public void create() {
         cameraRenderer = new CameraRenderer(this);
+
+        String trackerHost = getIntent().getStringExtra(EXTRA_TRACKER_HOST);
+        if (trackerHost == null) {
+            Gdx.app.log("Tracker", "No " + EXTRA_TRACKER_HOST + " given; head position tracking off");
+            return;
+        }
+        poseStream = new PoseStreamClient(new InetSocketAddress(trackerHost, TRACKER_PORT));
+        Thread thread = new Thread(poseStream, "Pose stream");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     @Override
@@ -59,12 +78,14 @@ public class CardboardGameAdapter extends CardBoardAndroidApplication
 
     @Override
     public void dispose() {
+        if (poseStream != null) poseStream.close();
         cameraRenderer.dispose();
     }
 
     @Override
     public void onNewFrame(HeadTransform paramHeadTransform) {
-        cameraRenderer.update(paramHeadTransform);
+        if (poseStream != null) poseStream.getPosition(System.nanoTime(), headPosition);
+        cameraRenderer.update(paramHeadTransform, headPosition);
     }
 
     @Override
@@ -0,0 +1,60 @@
+package com.justinmichaud.libgdxcardboard;
+
+/**
+ * Estimates the offset between the tracker's clock and the local one from ping/pong exchanges.
+ * Uses the sample with the smallest round trip out of the last few, since queueing delay only
+ * ever adds to the round trip and makes the offset less trustworthy.
+ */
+public class ClockSync {
+
+    private static final int WINDOW = 8;
+
+    private final long[] offsets = new long[WINDOW];
+    private final long[] roundTrips = new long[WINDOW];
+    private int samples = 0;
+
+    private long offsetNanos = 0;
+    private long roundTripNanos = 0;
+
+    /**
+     * Adds one exchange. t0 and t3 are the local send and receive times, t1 and t2 the
+     * server's receive and send times.
+     */
+    public void onPong(long t0, long t1, long t2, long t3) {
+        long roundTrip = (t3 - t0) - (t2 - t1);
+        if (roundTrip < 0) return;
+
+        int i = samples++ % WINDOW;
+        offsets[i] = ((t1 - t0) + (t2 - t3)) / 2;
+        roundTrips[i] = roundTrip;
+
+        int best = 0;
+        int count = Math.min(samples, WINDOW);
+        for (int j = 1; j < count; j++) {
+            if (roundTrips[j] < roundTrips[best]) best = j;
+        }
+        offsetNanos = offsets[best];
+        roundTripNanos = roundTrips[best];
+    }
+
+    public boolean isSynchronized() {
+        return samples > 0;
+    }
+
+    /** Server time minus local time. */
+    public long getOffsetNanos() {
+        return offsetNanos;
+    }
+
+    public long getRoundTripNanos() {
+        return roundTripNanos;
+    }
+
+    public long toServerTime(long localNanos) {
+        return localNanos + offsetNanos;
+    }
+
+    public long toLocalTime(long serverNanos) {
+        return serverNanos - offsetNanos;
+    }
+}
@@ -0,0 +1,65 @@
+package com.justinmichaud.libgdxcardboard;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single-writer seqlock holding what the pose stream client knows about the head: whether the
+ * latest pose was visible, and the last visible position with its velocity. The network thread
+ * writes it and the GL thread reads it without ever taking a lock.
+ */
+public class HeadPoseSlot {
+
+    private static final int SEQUENCE = 0, VISIBLE = 1, RECEIVED = 2, VISIBLE_RECEIVED = 3,
+            X = 4, Y = 5, Z = 6, VX = 7, VY = 8, VZ = 9, FIELDS = 10;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLongArray fields = new AtomicLongArray(FIELDS);
+
+    /** Snapshot of the slot. Readers keep their own instance. */
+    public static class State {
+        public long sequence;
+        public boolean visible;
+        public long receivedNanos;
+        public long visibleReceivedNanos;
+        public float x, y, z;
+        public float vx, vy, vz;
+    }
+
+    /** Network thread only. */
+    public void write(State state) {
+        long v = version.get();
+        version.set(v + 1);
+        fields.set(SEQUENCE, state.sequence);
+        fields.set(VISIBLE, state.visible ? 1 : 0);
+        fields.set(RECEIVED, state.receivedNanos);
+        fields.set(VISIBLE_RECEIVED, state.visibleReceivedNanos);
+        fields.set(X, Float.floatToRawIntBits(state.x));
+        fields.set(Y, Float.floatToRawIntBits(state.y));
+        fields.set(Z, Float.floatToRawIntBits(state.z));
+        fields.set(VX, Float.floatToRawIntBits(state.vx));
+        fields.set(VY, Float.floatToRawIntBits(state.vy));
+        fields.set(VZ, Float.floatToRawIntBits(state.vz));
+        version.set(v + 2);
+    }
+
+    public void read(State target) {
+        while (true) {
+            long before = version.get();
+            if ((before & 1) == 0) {
+                target.sequence = fields.get(SEQUENCE);
+                target.visible = fields.get(VISIBLE) != 0;
+                target.receivedNanos = fields.get(RECEIVED);
+                target.visibleReceivedNanos = fields.get(VISIBLE_RECEIVED);
+                target.x = Float.intBitsToFloat((int) fields.get(X));
+                target.y = Float.intBitsToFloat((int) fields.get(Y));
+                target.z = Float.intBitsToFloat((int) fields.get(Z));
+                target.vx = Float.intBitsToFloat((int) fields.get(VX));
+                target.vy = Float.intBitsToFloat((int) fields.get(VY));
+                target.vz = Float.intBitsToFloat((int) fields.get(VZ));
+                if (version.get() == before) return;
+            }
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.justinmichaud.libgdxcardboard;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Fixed-size binary frames for the head pose stream, big-endian:
+ *
+ * <pre>
+ *  0  short magic 'HP'     2  byte version      3  byte type
+ *  4  int flags            8  long sequence    16  long capture time, tracker nanoTime
+ * 24  float x, y, z       36  float qx, qy, qz, qw
+ * </pre>
+ *
+ * A client asks for binary frames by sending {@link #NEGOTIATE_BINARY} right after connecting;
+ * clients that send nothing keep getting the original text lines.
+ *
+ * <p>Control messages (subscribe, unsubscribe) are just the 8 byte header. Clock sync is an
+ * NTP-style exchange on the same connection: the client sends a ping carrying its send time
+ * and its current offset and round-trip estimate, and the server answers with a pong carrying
+ * the client time back plus its own receive and send times. A client can also ask for poses
+ * extrapolated a fixed lead past the server send time; those frames carry
+ * {@link #FLAG_PREDICTED} and their capture time field holds the time they were predicted for.
+ *
+ * <p>Stream options let a client cap its own rate, skip poses that moved less than a deadband,
+ * and still get the latest pose repeated at a heartbeat interval while the head is still.
+ */
+public final class PoseCodec {
+
+    public static final short MAGIC = 0x4850;
+    public static final byte VERSION = 1;
+    public static final int FRAME_SIZE = 52;
+
+    public static final int HEADER_SIZE = 8;
+
+    public static final byte TYPE_POSE = 1;
+    public static final byte TYPE_SUBSCRIBE = 2;
+    public static final byte TYPE_UNSUBSCRIBE = 3;
+    public static final byte TYPE_PING = 4;
+    public static final byte TYPE_PONG = 5;
+    public static final byte TYPE_EXTRAPOLATE = 6;
+    public static final byte TYPE_STREAM_OPTIONS = 7;
+
+    public static final int PING_SIZE = HEADER_SIZE + 24;
+    public static final int PONG_SIZE = HEADER_SIZE + 24;
+    public static final int EXTRAPOLATE_SIZE = HEADER_SIZE + 8;
+    public static final int STREAM_OPTIONS_SIZE = HEADER_SIZE + 12;
+
+    public static final int FLAG_VISIBLE = 1;
+    public static final int FLAG_ORIENTATION = 2;
+    public static final int FLAG_PREDICTED = 4;
+
+    public static final byte NEGOTIATE_BINARY = 'B';
+
+    private PoseCodec() {
+    }
+
+    public static void encodePose(ByteBuffer out, long sequence, long captureNanos, boolean visible,
+                                  float x, float y, float z) {
+        writeHeader(out, TYPE_POSE, visible ? FLAG_VISIBLE : 0);
+        out.putLong(sequence);
+        out.putLong(captureNanos);
+        out.putFloat(x).putFloat(y).putFloat(z);
+        out.putFloat(0).putFloat(0).putFloat(0).putFloat(1);
+    }
+
+    public static void encodePose(ByteBuffer out, PoseFrame pose) {
+        int flags = (pose.visible ? FLAG_VISIBLE : 0) | (pose.hasOrientation ? FLAG_ORIENTATION : 0)
+                | (pose.predicted ? FLAG_PREDICTED : 0);
+        writeHeader(out, TYPE_POSE, flags);
+        out.putLong(pose.sequence);
+        out.putLong(pose.captureNanos);
+        out.putFloat(pose.x).putFloat(pose.y).putFloat(pose.z);
+        out.putFloat(pose.qx).putFloat(pose.qy).putFloat(pose.qz).putFloat(pose.qw);
+    }
+
+    /**
+     * Decodes one pose frame if a whole frame is buffered. Returns false, consuming nothing,
+     * if fewer than {@link #FRAME_SIZE} bytes remain.
+     */
+    public static boolean decodePose(ByteBuffer in, PoseFrame target) {
+        if (in.remaining() < FRAME_SIZE) return false;
+
+        int flags = readHeader(in, TYPE_POSE);
+        target.visible = (flags & FLAG_VISIBLE) != 0;
+        target.hasOrientation = (flags & FLAG_ORIENTATION) != 0;
+        target.predicted = (flags & FLAG_PREDICTED) != 0;
+        target.sequence = in.getLong();
+        target.captureNanos = in.getLong();
+        target.x = in.getFloat();
+        target.y = in.getFloat();
+        target.z = in.getFloat();
+        target.qx = in.getFloat();
+        target.qy = in.getFloat();
+        target.qz = in.getFloat();
+        target.qw = in.getFloat();
+        return true;
+    }
+
+    public static void encodeControl(ByteBuffer out, byte type) {
+        writeHeader(out, type, 0);
+    }
+
+    /**
+     * Clock sync request. offsetNanos and roundTripNanos are the client's current estimate,
+     * zero if it has none yet; the server only reports them.
+     */
+    public static void encodePing(ByteBuffer out, long clientSendNanos, long offsetNanos, long roundTripNanos) {
+        writeHeader(out, TYPE_PING, 0);
+        out.putLong(clientSendNanos);
+        out.putLong(offsetNanos);
+        out.putLong(roundTripNanos);
+    }
+
+    /** Decodes a ping into times: client send time, offset estimate, round-trip estimate. */
+    public static boolean decodePing(ByteBuffer in, long[] times) {
+        return decodeTimes(in, TYPE_PING, PING_SIZE, times);
+    }
+
+    public static void encodePong(ByteBuffer out, long clientSendNanos, long serverReceiveNanos, long serverSendNanos) {
+        writeHeader(out, TYPE_PONG, 0);
+        out.putLong(clientSendNanos);
+        out.putLong(serverReceiveNanos);
+        out.putLong(serverSendNanos);
+    }
+
+    /** Decodes a pong into times: client send time, server receive time, server send time. */
+    public static boolean decodePong(ByteBuffer in, long[] times) {
+        return decodeTimes(in, TYPE_PONG, PONG_SIZE, times);
+    }
+
+    /** Asks for poses extrapolated leadNanos past the server send time; zero turns it off. */
+    public static void encodeExtrapolate(ByteBuffer out, long leadNanos) {
+        writeHeader(out, TYPE_EXTRAPOLATE, 0);
+        out.putLong(leadNanos);
+    }
+
+    public static long decodeExtrapolate(ByteBuffer in) {
+        readHeader(in, TYPE_EXTRAPOLATE);
+        return in.getLong();
+    }
+
+    /**
+     * Per-client stream options. maxRateHz of zero keeps the server's rate, a deadband of zero
+     * sends every pose, and a heartbeat of zero never repeats one.
+     */
+    public static void encodeStreamOptions(ByteBuffer out, float maxRateHz, float deadband, int heartbeatMillis) {
+        writeHeader(out, TYPE_STREAM_OPTIONS, 0);
+        out.putFloat(maxRateHz);
+        out.putFloat(deadband);
+        out.putInt(heartbeatMillis);
+    }
+
+    /** Decodes stream options into options: max rate, deadband, heartbeat millis. */
+    public static boolean decodeStreamOptions(ByteBuffer in, float[] options) {
+        if (in.remaining() < STREAM_OPTIONS_SIZE) return false;
+        readHeader(in, TYPE_STREAM_OPTIONS);
+        options[0] = in.getFloat();
+        options[1] = in.getFloat();
+        options[2] = in.getInt();
+        return true;
+    }
+
+    /** Size in bytes of a message of the given type, or -1 for an unknown type. */
+    public static int messageSize(int type) {
+        switch (type) {
+            case TYPE_POSE: return FRAME_SIZE;
+            case TYPE_SUBSCRIBE:
+            case TYPE_UNSUBSCRIBE: return HEADER_SIZE;
+            case TYPE_PING: return PING_SIZE;
+            case TYPE_PONG: return PONG_SIZE;
+            case TYPE_EXTRAPOLATE: return EXTRAPOLATE_SIZE;
+            case TYPE_STREAM_OPTIONS: return STREAM_OPTIONS_SIZE;
+            default: return -1;
+        }
+    }
+
+    private static boolean decodeTimes(ByteBuffer in, byte type, int size, long[] times) {
+        if (in.remaining() < size) return false;
+        readHeader(in, type);
+        times[0] = in.getLong();
+        times[1] = in.getLong();
+        times[2] = in.getLong();
+        return true;
+    }
+
+    /**
+     * Returns the message type at the buffer's position without consuming anything, or -1 if
+     * the bytes there are not a frame header.
+     */
+    public static int peekType(ByteBuffer in) {
+        int p = in.position();
+        if (in.remaining() < HEADER_SIZE || in.getShort(p) != MAGIC || in.get(p + 2) != VERSION) {
+            return -1;
+        }
+        return in.get(p + 3);
+    }
+
+    static void writeHeader(ByteBuffer out, byte type, int flags) {
+        out.putShort(MAGIC);
+        out.put(VERSION);
+        out.put(type);
+        out.putInt(flags);
+    }
+
+    static int readHeader(ByteBuffer in, byte expectedType) {
+        short magic = in.getShort();
+        byte version = in.get();
+        byte type = in.get();
+        if (magic != MAGIC) throw new IllegalArgumentException("Bad pose frame magic " + magic);
+        if (version != VERSION) throw new IllegalArgumentException("Unsupported pose frame version " + version);
+        if (type != expectedType) throw new IllegalArgumentException("Unexpected pose frame type " + type);
+        return in.getInt();
+    }
+}
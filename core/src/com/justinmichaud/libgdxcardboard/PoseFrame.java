@@ -0,0 +1,30 @@
+package com.justinmichaud.libgdxcardboard;
+
+/**
+ * Decoded pose frame from the head tracker. Reused between decodes.
+ */
+public class PoseFrame {
+
+    public long sequence;
+    public long captureNanos;
+    public boolean visible;
+    public boolean hasOrientation;
+    public boolean predicted;
+    public float x, y, z;
+    public float qx, qy, qz, qw = 1;
+
+    public void set(PoseFrame other) {
+        sequence = other.sequence;
+        captureNanos = other.captureNanos;
+        visible = other.visible;
+        hasOrientation = other.hasOrientation;
+        predicted = other.predicted;
+        x = other.x;
+        y = other.y;
+        z = other.z;
+        qx = other.qx;
+        qy = other.qy;
+        qz = other.qz;
+        qw = other.qw;
+    }
+}
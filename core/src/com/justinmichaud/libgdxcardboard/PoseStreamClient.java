@@ -0,0 +1,230 @@
+package com.justinmichaud.libgdxcardboard;
+
+import com.badlogic.gdx.math.Vector3;
+
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Receives the head pose stream from the desktop tracker on its own thread and keeps the latest
+ * state in a {@link HeadPoseSlot}, so the render thread can ask for a position every frame
+ * without blocking. When the tracker reports the head as lost, or poses stop arriving, the
+ * position keeps moving along the last velocity, which decays to zero, instead of freezing or
+ * jumping. Reconnects on its own if the connection drops.
+ */
+public class PoseStreamClient implements Runnable {
+
+    /** Poses older than this no longer count as live tracking. */
+    public static final long STALE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    /** Time constant of the velocity decay while dead reckoning. */
+    public static final double DECAY_SECONDS = 0.15;
+
+    private static final long PING_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long RECONNECT_MILLIS = 500;
+
+    private final SocketAddress server;
+    private final HeadPoseSlot slot = new HeadPoseSlot();
+    private final ClockSync clock = new ClockSync();
+
+    private final ByteBuffer in = ByteBuffer.allocate(PoseCodec.FRAME_SIZE * 8);
+    private final ByteBuffer out = ByteBuffer.allocate(1 + PoseCodec.PING_SIZE);
+    private final PoseFrame frame = new PoseFrame();
+    private final HeadPoseSlot.State state = new HeadPoseSlot.State();
+    private final long[] times = new long[3];
+    private long previousCaptureNanos = 0;
+
+    private final HeadPoseSlot.State snapshot = new HeadPoseSlot.State();
+
+    private volatile Selector selector;
+    private volatile boolean running = true;
+    private volatile boolean connected = false;
+    private volatile long received = 0;
+    private volatile long reconnects = 0;
+
+    public PoseStreamClient(SocketAddress server) {
+        this.server = server;
+    }
+
+    @Override
+    public void run() {
+        while (running) {
+            try {
+                selector = Selector.open();
+                try {
+                    stream();
+                } finally {
+                    connected = false;
+                    selector.close();
+                }
+            } catch (IOException e) {
+                // Tracker not reachable; retry below
+            }
+            if (!running) return;
+
+            reconnects++;
+            try {
+                Thread.sleep(RECONNECT_MILLIS);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private void stream() throws IOException {
+        SocketChannel channel = SocketChannel.open();
+        try {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            channel.connect(server);
+            SelectionKey key = channel.register(selector, SelectionKey.OP_CONNECT);
+            in.clear();
+            out.clear();
+
+            // A restarted tracker numbers its poses from 1 again
+            state.sequence = 0;
+            state.vx = state.vy = state.vz = 0;
+            previousCaptureNanos = 0;
+
+            long lastPingNanos = 0;
+            while (running) {
+                long now = System.nanoTime();
+                long wait = connected ? PING_INTERVAL_NANOS - (now - lastPingNanos) : PING_INTERVAL_NANOS;
+                selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(wait)));
+                selector.selectedKeys().clear();
+
+                if (!connected) {
+                    if (!channel.finishConnect()) continue;
+                    connected = true;
+                    out.put(PoseCodec.NEGOTIATE_BINARY);
+                }
+                if (out.position() > 0) flush(channel, key);
+
+                if (channel.read(in) < 0) return;
+                drain(System.nanoTime());
+
+                now = System.nanoTime();
+                if (now - lastPingNanos >= PING_INTERVAL_NANOS) {
+                    // Skip this ping if the last one has not gone out yet
+                    if (out.position() == 0) {
+                        PoseCodec.encodePing(out, now, clock.getOffsetNanos(), clock.getRoundTripNanos());
+                        flush(channel, key);
+                    }
+                    lastPingNanos = now;
+                }
+            }
+        } finally {
+            channel.close();
+        }
+    }
+
+    /** Handles every complete message in the input buffer. */
+    void drain(long receivedNanos) throws IOException {
+        in.flip();
+        while (in.remaining() >= PoseCodec.HEADER_SIZE) {
+            int type = PoseCodec.peekType(in);
+            int size = PoseCodec.messageSize(type);
+            if (size < 0) throw new IOException("Unexpected pose stream message " + type);
+            if (in.remaining() < size) break;
+
+            if (type == PoseCodec.TYPE_POSE) {
+                PoseCodec.decodePose(in, frame);
+                onPose(frame, receivedNanos);
+            } else if (type == PoseCodec.TYPE_PONG) {
+                PoseCodec.decodePong(in, times);
+                clock.onPong(times[0], times[1], times[2], receivedNanos);
+            } else {
+                in.position(in.position() + size);
+            }
+        }
+        in.compact();
+    }
+
+    /** Network thread: folds one pose into the state and publishes it to the slot. */
+    void onPose(PoseFrame pose, long receivedNanos) {
+        if (pose.sequence <= state.sequence) return;
+        received++;
+
+        state.sequence = pose.sequence;
+        state.visible = pose.visible;
+        state.receivedNanos = receivedNanos;
+        if (pose.visible) {
+            long dt = pose.captureNanos - previousCaptureNanos;
+            if (previousCaptureNanos != 0 && dt > 0) {
+                float vx = (pose.x - state.x) * 1e9f / dt;
+                float vy = (pose.y - state.y) * 1e9f / dt;
+                float vz = (pose.z - state.z) * 1e9f / dt;
+                state.vx = 0.5f * state.vx + 0.5f * vx;
+                state.vy = 0.5f * state.vy + 0.5f * vy;
+                state.vz = 0.5f * state.vz + 0.5f * vz;
+            } else {
+                state.vx = state.vy = state.vz = 0;
+            }
+            state.x = pose.x;
+            state.y = pose.y;
+            state.z = pose.z;
+            state.visibleReceivedNanos = receivedNanos;
+            previousCaptureNanos = pose.captureNanos;
+        } else {
+            previousCaptureNanos = 0;
+        }
+        slot.write(state);
+    }
+
+    /**
+     * Render thread: writes the best estimate of the head position at nowNanos into out.
+     * Returns true while poses are live and visible, false while dead reckoning. Leaves out
+     * untouched if no visible pose has been received yet.
+     */
+    public boolean getPosition(long nowNanos, Vector3 out) {
+        slot.read(snapshot);
+        if (snapshot.visibleReceivedNanos == 0) return false;
+
+        double dt = Math.max(0, nowNanos - snapshot.visibleReceivedNanos) / 1e9;
+        double travel = DECAY_SECONDS * (1 - Math.exp(-dt / DECAY_SECONDS));
+        out.set((float) (snapshot.x + snapshot.vx * travel),
+                (float) (snapshot.y + snapshot.vy * travel),
+                (float) (snapshot.z + snapshot.vz * travel));
+        return snapshot.visible && nowNanos - snapshot.receivedNanos < STALE_NANOS;
+    }
+
+    public boolean isConnected() {
+        return connected;
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    public long getReconnects() {
+        return reconnects;
+    }
+
+    /** Tracker clock minus local clock, once a ping has been answered. */
+    public ClockSync getClock() {
+        return clock;
+    }
+
+    public void close() {
+        running = false;
+        Selector current = selector;
+        if (current != null) current.wakeup();
+    }
+
+    /**
+     * Writes as much of the pending output as the socket takes without blocking. Whatever is
+     * left stays in out, and the key waits for the socket to become writable again, so a server
+     * that stops reading never holds up the poses coming the other way.
+     */
+    private void flush(SocketChannel channel, SelectionKey key) throws IOException {
+        out.flip();
+        channel.write(out);
+        out.compact();
+        key.interestOps(out.position() > 0
+                ? SelectionKey.OP_READ | SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+}
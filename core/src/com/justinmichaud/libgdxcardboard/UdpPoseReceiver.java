@@ -0,0 +1,121 @@
+package com.justinmichaud.libgdxcardboard;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+
+/**
+ * Client side of the UDP pose stream. Keeps its subscription alive and hands out only the
+ * newest pose: datagrams that arrive out of order or duplicated are dropped, since for head
+ * tracking an old pose is worse than a missing one. A restarted tracker numbers its poses from
+ * 1 again, so a large jump backwards, or any pose after a long silence, starts a new session
+ * instead of being dropped as stale.
+ */
+public class UdpPoseReceiver {
+
+    public static final long KEEPALIVE_MS = 1000;
+    public static final long SESSION_GAP_MS = 2000;
+    public static final long RESTART_JUMP = 256;
+
+    private final DatagramChannel channel;
+    private final SocketAddress server;
+    private final ByteBuffer in = ByteBuffer.allocate(PoseCodec.FRAME_SIZE * 2);
+    private final ByteBuffer control = ByteBuffer.allocate(PoseCodec.HEADER_SIZE);
+    private final PoseFrame decoded = new PoseFrame();
+
+    private long lastSequence = 0;
+    private long lastKeepaliveMs = 0;
+    private long lastReceiveMs = 0;
+    private long received = 0;
+    private long stale = 0;
+    private long gaps = 0;
+
+    public UdpPoseReceiver(SocketAddress server) throws IOException {
+        this(server, new InetSocketAddress(0));
+    }
+
+    public UdpPoseReceiver(SocketAddress server, SocketAddress local) throws IOException {
+        this.server = server;
+        channel = DatagramChannel.open();
+        channel.socket().bind(local);
+        channel.configureBlocking(false);
+        keepAlive(System.currentTimeMillis());
+    }
+
+    /**
+     * Drains every queued datagram and copies the newest pose into target. Returns false if
+     * nothing newer than the last returned pose arrived.
+     */
+    public boolean poll(PoseFrame target) throws IOException {
+        long now = System.currentTimeMillis();
+        if (now - lastKeepaliveMs >= KEEPALIVE_MS) keepAlive(now);
+
+        boolean updated = false;
+        while (true) {
+            in.clear();
+            if (channel.receive(in) == null) return updated;
+            in.flip();
+
+            if (PoseCodec.peekType(in) != PoseCodec.TYPE_POSE || !PoseCodec.decodePose(in, decoded)) {
+                continue;
+            }
+            received++;
+            if (lastSequence != 0 && (now - lastReceiveMs > SESSION_GAP_MS
+                    || decoded.sequence < lastSequence - RESTART_JUMP)) {
+                lastSequence = 0;
+                gaps = 0;
+            }
+            lastReceiveMs = now;
+            if (decoded.sequence <= lastSequence) {
+                stale++;
+                continue;
+            }
+            if (lastSequence != 0 && decoded.sequence > lastSequence + 1) {
+                gaps += decoded.sequence - lastSequence - 1;
+            }
+            lastSequence = decoded.sequence;
+            target.set(decoded);
+            updated = true;
+        }
+    }
+
+    public void close() throws IOException {
+        try {
+            sendControl(PoseCodec.TYPE_UNSUBSCRIBE);
+        } finally {
+            channel.close();
+        }
+    }
+
+    public int getLocalPort() {
+        return channel.socket().getLocalPort();
+    }
+
+    public long getReceived() {
+        return received;
+    }
+
+    /** Datagrams dropped for arriving after a newer pose. */
+    public long getStale() {
+        return stale;
+    }
+
+    /** Sequence numbers skipped in the current session, i.e. poses lost or overtaken in transit. */
+    public long getGaps() {
+        return gaps;
+    }
+
+    private void keepAlive(long now) throws IOException {
+        sendControl(PoseCodec.TYPE_SUBSCRIBE);
+        lastKeepaliveMs = now;
+    }
+
+    private void sendControl(byte type) throws IOException {
+        control.clear();
+        PoseCodec.encodeControl(control, type);
+        control.flip();
+        channel.send(control, server);
+    }
+}
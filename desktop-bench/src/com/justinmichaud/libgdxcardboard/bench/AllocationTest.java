@@ -0,0 +1,91 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.GrayIngest;
+import com.justinmichaud.libgdxcardboard.desktop.PosePublisher;
+
+import java.lang.management.ManagementFactory;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Checks that the per-frame path stays allocation free once warmed up. Converts the recorded
+ * frames from RGB with {@link GrayIngest} on this thread, then replays them through a
+ * {@link BoofProcessor}, and reads the heap bytes each thread allocated over the measured
+ * frames: this one, the processor's vision thread and its capture thread, which reads the
+ * frames from the source. Throws if any averages more than the bound per frame. The capture
+ * thread never runs detection, so its bound is tighter: a buffer wrapped per frame shows up.
+ * Usage: {@code AllocationTest [resolution] [frames] [max bytes per frame] [max capture bytes per frame]}.
+ */
+public class AllocationTest {
+
+    public static void main(String[] args) throws Exception {
+        String resolution = args.length > 0 ? args[0] : "1080p";
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 600;
+        long bound = args.length > 2 ? Long.parseLong(args[2]) : 256;
+        long captureBound = args.length > 3 ? Long.parseLong(args[3]) : 16;
+
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        if (!threads.isThreadAllocatedMemorySupported()) {
+            throw new IllegalStateException("This JVM does not count allocated bytes per thread");
+        }
+        threads.setThreadAllocatedMemoryEnabled(true);
+
+        GrayU8[] frames = Fixtures.load(resolution);
+        byte[][] rgb = new byte[frames.length][];
+        for (int i = 0; i < frames.length; i++) {
+            rgb[i] = toRgb(frames[i]);
+        }
+        GrayU8 gray = new GrayU8(frames[0].width, frames[0].height);
+        long self = Thread.currentThread().getId();
+        for (int i = 0; i < count; i++) {
+            GrayIngest.rgbToGray(rgb[i % rgb.length], gray);
+        }
+        long before = threads.getThreadAllocatedBytes(self);
+        for (int i = 0; i < count; i++) {
+            GrayIngest.rgbToGray(rgb[i % rgb.length], gray);
+        }
+        check("ingest", (threads.getThreadAllocatedBytes(self) - before) / (double) count, bound);
+
+        BoofProcessor processor = new BoofProcessor(Fixtures.replay(resolution));
+        PosePublisher publisher = processor.getPublisher();
+        awaitFrames(publisher, count);
+
+        long capture = processor.getCaptureThreadId();
+        long startFrame = publisher.getSequence();
+        long startBytes = threads.getThreadAllocatedBytes(processor.getId());
+        long startCaptureBytes = threads.getThreadAllocatedBytes(capture);
+        awaitFrames(publisher, startFrame + count);
+        long bytes = threads.getThreadAllocatedBytes(processor.getId()) - startBytes;
+        long captureBytes = threads.getThreadAllocatedBytes(capture) - startCaptureBytes;
+        long published = publisher.getSequence() - startFrame;
+        check("vision thread", bytes / (double) published, bound);
+        check("capture thread", captureBytes / (double) published, captureBound);
+    }
+
+    private static byte[] toRgb(GrayU8 frame) {
+        byte[] rgb = new byte[frame.width * frame.height * 3];
+        int dst = 0;
+        for (int y = 0; y < frame.height; y++) {
+            for (int x = 0; x < frame.width; x++) {
+                byte value = frame.data[frame.startIndex + y * frame.stride + x];
+                rgb[dst++] = value;
+                rgb[dst++] = value;
+                rgb[dst++] = value;
+            }
+        }
+        return rgb;
+    }
+
+    private static void awaitFrames(PosePublisher publisher, long frames) throws InterruptedException {
+        while (publisher.getSequence() < frames) Thread.sleep(10);
+    }
+
+    private static void check(String stage, double perFrame, long bound) {
+        System.out.printf("%s allocated %.1f bytes per frame%n", stage, perFrame);
+        if (perFrame > bound) {
+            throw new IllegalStateException(stage + " allocates " + perFrame + " bytes per frame, more than " + bound);
+        }
+    }
+}
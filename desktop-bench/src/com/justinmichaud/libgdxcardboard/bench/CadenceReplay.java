@@ -0,0 +1,36 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.TrackerConfig;
+
+/**
+ * Replays the recorded frames through the tracker with detection on every frame, then with
+ * detection every interval frames and corner flow in between, and compares the second against
+ * the first: pose RMSE over frames where both saw the head, frames where only one did, and
+ * vision thread CPU per frame. Each run skips one pass over the fixture to warm up.
+ * Usage: {@code CadenceReplay [resolution] [interval] [frames]}.
+ */
+public class CadenceReplay {
+
+    public static void main(String[] args) throws Exception {
+        String resolution = args.length > 0 ? args[0] : "1080p";
+        int interval = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int warmup = Fixtures.load(resolution).length;
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : warmup;
+
+        PoseRecorder everyFrame = run(resolution, 1, warmup, count);
+        PoseRecorder cadence = run(resolution, interval, warmup, count);
+
+        System.out.printf("%-12s %10s %10s %12s%n", "detection", "cpu_ms", "rmse", "vis_differ");
+        System.out.printf("%-12s %10.3f %10s %12s%n", "every frame", everyFrame.cpuMillisPerFrame(), "-", "-");
+        System.out.printf("%-12s %10.3f %10.5f %12d%n", "every " + interval, cadence.cpuMillisPerFrame(),
+                cadence.rmse(everyFrame), cadence.visibilityDifferences(everyFrame));
+    }
+
+    private static PoseRecorder run(String resolution, int interval, int warmup, int count) throws Exception {
+        TrackerConfig config = Fixtures.replay(resolution);
+        config.detectionWorkers = 1;
+        config.detectionInterval = interval;
+        return PoseRecorder.record(new BoofProcessor(config), warmup, count);
+    }
+}
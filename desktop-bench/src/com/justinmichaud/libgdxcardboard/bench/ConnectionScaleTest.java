@@ -0,0 +1,142 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.PoseCodec;
+import com.justinmichaud.libgdxcardboard.PoseFrame;
+import com.justinmichaud.libgdxcardboard.desktop.LatencyHistogram;
+import com.justinmichaud.libgdxcardboard.desktop.PoseBroadcastServer;
+import com.justinmichaud.libgdxcardboard.desktop.PosePublisher;
+import com.justinmichaud.libgdxcardboard.desktop.PoseServer;
+import com.justinmichaud.libgdxcardboard.desktop.ServerMode;
+import com.justinmichaud.libgdxcardboard.desktop.ThreadPerConnectionServer;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the pose server modes at thousands of connections. Idle clients negotiate binary
+ * frames and then never read, so their socket buffers fill and their writers stay blocked;
+ * active clients read everything and measure publish-to-receive latency. Reports latency,
+ * delivery, and the server's thread count and heap.
+ * Usage: {@code ConnectionScaleTest [selector|virtual|platform] [idle] [active] [seconds]}.
+ * The virtual mode needs JDK 21; on older JDKs it runs on platform threads.
+ */
+public class ConnectionScaleTest {
+
+    public static void main(String[] args) throws Exception {
+        ServerMode mode = ServerMode.valueOf((args.length > 0 ? args[0] : "virtual").toUpperCase());
+        int idleCount = args.length > 1 ? Integer.parseInt(args[1]) : 2000;
+        int activeCount = args.length > 2 ? Integer.parseInt(args[2]) : 1000;
+        int seconds = args.length > 3 ? Integer.parseInt(args[3]) : 10;
+        final double rate = 120;
+
+        final PosePublisher publisher = new PosePublisher();
+        InetSocketAddress bind = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        PoseServer server;
+        String description = mode.name().toLowerCase();
+        if (mode == ServerMode.SELECTOR) server = new PoseBroadcastServer(publisher, null, bind, 0);
+        else {
+            ThreadPerConnectionServer threaded = new ThreadPerConnectionServer(publisher, null, bind, 0,
+                    mode == ServerMode.VIRTUAL);
+            if (mode == ServerMode.VIRTUAL && !threaded.isVirtual()) description += " (platform fallback)";
+            server = threaded;
+        }
+        Thread serverThread = new Thread(server, "Pose server");
+        serverThread.start();
+        int baseThreads = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        List<SocketChannel> idle = new ArrayList<SocketChannel>();
+        for (int i = 0; i < idleCount; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.socket().setReceiveBufferSize(4096);
+            channel.write(ByteBuffer.wrap(new byte[] {PoseCodec.NEGOTIATE_BINARY}));
+            idle.add(channel);
+        }
+        Selector selector = Selector.open();
+        long[] received = new long[activeCount];
+        for (int i = 0; i < activeCount; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.write(ByteBuffer.wrap(new byte[] {PoseCodec.NEGOTIATE_BINARY}));
+            channel.configureBlocking(false);
+            channel.register(selector, SelectionKey.OP_READ,
+                    new Object[] {i, ByteBuffer.allocate(PoseCodec.FRAME_SIZE * 16)});
+        }
+        while (server.getClientCount() < idleCount + activeCount) Thread.sleep(10);
+
+        final long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Thread tracker = new Thread("Synthetic tracker") {
+            @Override
+            public void run() {
+                long period = (long) (1e9 / rate);
+                long next = System.nanoTime();
+                float t = 0;
+                while (System.nanoTime() < endNanos) {
+                    publisher.publish((float) Math.sin(t), (float) Math.cos(t), -5, true, System.nanoTime());
+                    t += 0.01f;
+                    next += period;
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        try {
+                            Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }
+        };
+        tracker.start();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        PoseFrame frame = new PoseFrame();
+        int peakThreads = 0;
+        while (System.nanoTime() < endNanos) {
+            selector.select(50);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Object[] state = (Object[]) key.attachment();
+                ByteBuffer in = (ByteBuffer) state[1];
+                if (((SocketChannel) key.channel()).read(in) < 0) throw new IOException("Server closed");
+
+                in.flip();
+                while (PoseCodec.decodePose(in, frame)) {
+                    latency.record(System.nanoTime() - frame.captureNanos);
+                    received[(Integer) state[0]]++;
+                }
+                in.compact();
+            }
+            peakThreads = Math.max(peakThreads, ManagementFactory.getThreadMXBean().getThreadCount());
+        }
+        tracker.join();
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        long heap = runtime.totalMemory() - runtime.freeMemory();
+
+        server.close();
+        for (SocketChannel channel : idle) channel.close();
+        serverThread.join();
+
+        long published = publisher.getSequence(), total = 0;
+        for (long count : received) total += count;
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("mode=%s idle=%d active=%d published=%d%n", description, idleCount, activeCount, published));
+        out.append(String.format("delivered %.1f%% to active clients%n",
+                100.0 * total / Math.max(1, activeCount) / Math.max(1, published)));
+        out.append(String.format("threads peak=%d (+%d over baseline) heap=%.1fMB%n",
+                peakThreads, peakThreads - baseThreads, heap / 1e6));
+        latency.report("publish_to_receive", out);
+        System.out.print(out);
+    }
+}
@@ -0,0 +1,68 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.CornerTracker;
+import com.justinmichaud.libgdxcardboard.desktop.Markers;
+
+import boofcv.struct.image.GrayU8;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Checks {@link CornerTracker}'s pyramidal Lucas-Kanade steps on a synthetic texture shifted by
+ * known amounts: a sub-pixel shift, one inside the window, and one only the coarser pyramid
+ * levels can reach. Every corner of the tracked quad must move by the shift to within the
+ * tolerance in pixels. Needs no fixtures.
+ * Usage: {@code CornerTrackerTest [tolerance px]}.
+ */
+public class CornerTrackerTest {
+
+    private static final int WIDTH = 320, HEIGHT = 240, LEVELS = 3;
+    private static final double[][] SHIFTS = {{0.4, -0.3}, {3, 2}, {9.5, -6.25}};
+
+    public static void main(String[] args) {
+        double tolerance = args.length > 0 ? Double.parseDouble(args[0]) : 0.1;
+
+        Markers markers = new Markers();
+        markers.add(284, 110, 120, 40, 40);
+        markers.add(643, 210, 120, 40, 40);
+        Quadrilateral_F64 quad = new Quadrilateral_F64(90, 100, 230, 100, 230, 140, 90, 140);
+        GrayU8 start = render(0, 0);
+
+        for (double[] shift : SHIFTS) {
+            CornerTracker corners = new CornerTracker(WIDTH, HEIGHT, LEVELS);
+            corners.initialize(start, quad, markers);
+            Quadrilateral_F64 tracked = new Quadrilateral_F64();
+            if (!corners.process(render(shift[0], shift[1]), tracked)) {
+                throw new IllegalStateException("Lost the corners on a shift of " + shift[0] + "," + shift[1]);
+            }
+
+            double worst = Math.max(Math.max(offBy(quad.a, tracked.a, shift), offBy(quad.b, tracked.b, shift)),
+                    Math.max(offBy(quad.c, tracked.c, shift), offBy(quad.d, tracked.d, shift)));
+            if (worst > tolerance) {
+                throw new IllegalStateException("Shift of " + shift[0] + "," + shift[1] + " tracked "
+                        + worst + " px off");
+            }
+            System.out.printf("shift=%.2f,%.2f worst_difference=%.4fpx error=%.3f%n",
+                    shift[0], shift[1], worst, corners.getError());
+        }
+    }
+
+    /** Distance between where a corner was tracked to and where the shift should have put it. */
+    private static double offBy(Point2D_F64 from, Point2D_F64 to, double[] shift) {
+        return Math.hypot(to.x - from.x - shift[0], to.y - from.y - shift[1]);
+    }
+
+    /** Smooth, non-repeating texture moved by (dx, dy), so every window has gradient both ways. */
+    private static GrayU8 render(double dx, double dy) {
+        GrayU8 image = new GrayU8(WIDTH, HEIGHT);
+        for (int y = 0; y < HEIGHT; y++) {
+            for (int x = 0; x < WIDTH; x++) {
+                double u = x - dx, v = y - dy;
+                double value = 128 + 40 * Math.sin(0.11 * u + 0.05 * v) + 35 * Math.sin(0.09 * v - 0.043 * u)
+                        + 25 * Math.cos(0.071 * u + 0.13 * v + 1);
+                image.data[image.startIndex + y * image.stride + x] = (byte) Math.round(value);
+            }
+        }
+        return image;
+    }
+}
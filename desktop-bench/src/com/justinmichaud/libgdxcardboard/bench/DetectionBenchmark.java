@@ -0,0 +1,68 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.badlogic.gdx.math.Vector3;
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.HeadEstimator;
+import com.justinmichaud.libgdxcardboard.desktop.MarkerSearch;
+import com.justinmichaud.libgdxcardboard.desktop.Markers;
+import com.justinmichaud.libgdxcardboard.desktop.SearchMode;
+import com.justinmichaud.libgdxcardboard.desktop.TrackerConfig;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * squareBinary detection through each {@link MarkerSearch} mode, cycling through the recorded
+ * frames and feeding the head quad back the way BoofProcessor does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class DetectionBenchmark {
+
+    @Param({"1080p", "720p"})
+    public String resolution;
+
+    @Param({"FULL", "ROI", "PYRAMID", "TILED"})
+    public String mode;
+
+    private GrayU8[] frames;
+    private MarkerSearch search;
+    private final Markers markers = new Markers();
+    private final Quadrilateral_F64 location = new Quadrilateral_F64();
+    private final Vector3 measured = new Vector3();
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        frames = Fixtures.load(resolution);
+        TrackerConfig config = new TrackerConfig();
+        config.searchMode = SearchMode.valueOf(mode);
+        search = MarkerSearch.create(config,
+                BoofProcessor.createIntrinsic(frames[0].width, frames[0].height));
+    }
+
+    @Benchmark
+    public int detect() {
+        GrayU8 frame = frames[next];
+        next = (next + 1) % frames.length;
+
+        search.search(frame, markers);
+        boolean visible = HeadEstimator.fromMarkers(markers, frame.width, frame.height,
+                location, null, measured);
+        search.update(location, visible);
+        return markers.size;
+    }
+}
@@ -0,0 +1,63 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.FrameSource;
+import com.justinmichaud.libgdxcardboard.desktop.RawFrameFileSource;
+import com.justinmichaud.libgdxcardboard.desktop.TrackerConfig;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Loads recorded frames from {@code fixtures/frames-<resolution>.raw}. Record them on the
+ * tracking rig and convert with {@code RawFrameWriter <imageDir> <out.raw>}.
+ */
+public final class Fixtures {
+
+    public static final int MAX_FRAMES = 120;
+
+    private Fixtures() {
+    }
+
+    public static File file(String resolution) {
+        File dir = new File(System.getProperty("bench.fixtures", "fixtures"));
+        File file = new File(dir, "frames-" + resolution + ".raw");
+        if (!file.isFile()) {
+            throw new IllegalStateException("Missing benchmark fixture " + file.getAbsolutePath());
+        }
+        return file;
+    }
+
+    /**
+     * Tracker settings that replay the fixture in a loop as fast as it is processed, without
+     * the preview window; the rest comes from the usual {@code -Dtracker.*} properties.
+     */
+    public static TrackerConfig replay(String resolution) {
+        TrackerConfig config = TrackerConfig.fromSystemProperties();
+        config.source = "raw:" + file(resolution).getPath();
+        config.sourcePacing = FrameSource.Pacing.FAST;
+        config.sourceLoop = true;
+        config.showGui = false;
+        return config;
+    }
+
+    public static GrayU8[] load(String resolution) throws IOException {
+        File file = file(resolution);
+        RawFrameFileSource source = new RawFrameFileSource(file, FrameSource.Pacing.FAST, false);
+        List<GrayU8> frames = new ArrayList<GrayU8>();
+        try {
+            while (frames.size() < MAX_FRAMES) {
+                GrayU8 frame = new GrayU8(source.getWidth(), source.getHeight());
+                if (!source.read(frame)) break;
+                frames.add(frame);
+            }
+        } finally {
+            source.close();
+        }
+        if (frames.isEmpty()) throw new IllegalStateException("Empty benchmark fixture " + file);
+        return frames.toArray(new GrayU8[frames.size()]);
+    }
+}
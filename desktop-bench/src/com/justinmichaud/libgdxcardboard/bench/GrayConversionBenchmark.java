@@ -0,0 +1,60 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.GrayIngest;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import boofcv.io.image.ConvertBufferedImage;
+import boofcv.struct.image.GrayU8;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class GrayConversionBenchmark {
+
+    @Param({"1080p", "720p"})
+    public String resolution;
+
+    private byte[] rgb;
+    private BufferedImage image;
+    private GrayU8 output;
+
+    @Setup
+    public void setup() throws IOException {
+        GrayU8 frame = Fixtures.load(resolution)[0];
+        int pixels = frame.width * frame.height;
+
+        rgb = new byte[pixels * 3];
+        for (int i = 0; i < pixels; i++) {
+            rgb[3 * i] = rgb[3 * i + 1] = rgb[3 * i + 2] = frame.data[i];
+        }
+
+        image = new BufferedImage(frame.width, frame.height, BufferedImage.TYPE_3BYTE_BGR);
+        System.arraycopy(rgb, 0, ((DataBufferByte) image.getRaster().getDataBuffer()).getData(),
+                0, rgb.length);
+        output = new GrayU8(frame.width, frame.height);
+    }
+
+    @Benchmark
+    public GrayU8 rawBytesToGray() {
+        GrayIngest.rgbToGray(rgb, output);
+        return output;
+    }
+
+    @Benchmark
+    public GrayU8 bufferedImageToGray() {
+        return ConvertBufferedImage.convertFrom(image, output);
+    }
+}
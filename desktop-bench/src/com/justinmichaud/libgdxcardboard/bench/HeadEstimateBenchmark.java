@@ -0,0 +1,57 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.badlogic.gdx.math.Vector3;
+import com.justinmichaud.libgdxcardboard.desktop.HeadEstimator;
+import com.justinmichaud.libgdxcardboard.desktop.Markers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Quad averaging, normalisation and smoothing applied to every frame's detections.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HeadEstimateBenchmark {
+
+    private static final int WIDTH = 1920, HEIGHT = 1080;
+
+    private final Markers markers = new Markers();
+    private final Quadrilateral_F64 location = new Quadrilateral_F64();
+    private final Vector3 measured = new Vector3();
+    private final Vector3 position = new Vector3();
+
+    @Setup
+    public void setup() {
+        markers.reset();
+        markers.add(284, 900, 500, 120, 118);
+        markers.add(643, 1060, 505, 122, 121);
+        HeadEstimator.fromMarkers(markers, WIDTH, HEIGHT, location, null, measured);
+    }
+
+    @Benchmark
+    public Vector3 averageMarkers() {
+        HeadEstimator.fromMarkers(markers, WIDTH, HEIGHT, location, null, measured);
+        HeadEstimator.clamp(measured);
+        HeadEstimator.smooth(position, measured);
+        return position;
+    }
+
+    @Benchmark
+    public Vector3 averageTrackedQuad() {
+        HeadEstimator.fromQuad(location, WIDTH, HEIGHT, measured);
+        HeadEstimator.clamp(measured);
+        HeadEstimator.smooth(position, measured);
+        return position;
+    }
+}
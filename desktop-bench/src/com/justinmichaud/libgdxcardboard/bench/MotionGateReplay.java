@@ -0,0 +1,73 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.FrameSource;
+import com.justinmichaud.libgdxcardboard.desktop.LatencyHistogram;
+import com.justinmichaud.libgdxcardboard.desktop.MotionGate;
+import com.justinmichaud.libgdxcardboard.desktop.TrackerConfig;
+
+import java.util.concurrent.TimeUnit;
+
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Replays the recorded frames in real time through the tracker with the motion gate off, then
+ * on, and compares capture-to-publish latency over the frames where the picture moved, which
+ * the gate has to check and then process anyway, and over all frames. A frame counts as moving
+ * when a whole-frame {@link MotionGate} with the {@code -Dtracker.motion.*} settings would not
+ * skip it. Each run skips one pass over the fixture to warm up; poses are matched to frames by
+ * order, so the tracker has to keep up with the recording.
+ * Usage: {@code MotionGateReplay [resolution]}.
+ */
+public class MotionGateReplay {
+
+    public static void main(String[] args) throws Exception {
+        String resolution = args.length > 0 ? args[0] : "1080p";
+        GrayU8[] frames = Fixtures.load(resolution);
+        boolean[] moving = moving(frames, TrackerConfig.fromSystemProperties());
+
+        System.out.printf("%-5s %8s %10s %10s %10s %10s %10s%n",
+                "gate", "skipped", "moving_p50", "moving_p99", "all_p50", "all_p99", "dropped");
+        for (boolean gate : new boolean[] { false, true }) {
+            TrackerConfig config = Fixtures.replay(resolution);
+            config.sourcePacing = FrameSource.Pacing.REAL_TIME;
+            config.detectionWorkers = 1;
+            config.filterPredict = false;
+            config.motionGate = gate;
+            BoofProcessor processor = new BoofProcessor(config);
+            PoseRecorder poses = PoseRecorder.record(processor, frames.length, frames.length);
+
+            LatencyHistogram movingLatency = new LatencyHistogram(), allLatency = new LatencyHistogram();
+            for (int i = 0; i < poses.count; i++) {
+                long latency = poses.publishNanos[i] - poses.captureNanos[i];
+                allLatency.record(latency);
+                if (moving[i]) movingLatency.record(latency);
+            }
+            System.out.printf("%-5s %8d %10s %10s %10s %10s %10d%n", gate ? "on" : "off",
+                    processor.getMetrics().getSkippedFrames(),
+                    millis(movingLatency.quantile(0.5)), millis(movingLatency.quantile(0.99)),
+                    millis(allLatency.quantile(0.5)), millis(allLatency.quantile(0.99)),
+                    processor.getCaptureDrops());
+        }
+    }
+
+    /** Frames that differ from the one before them enough for the gate to process them. */
+    static boolean[] moving(GrayU8[] frames, TrackerConfig config) {
+        MotionGate gate = new MotionGate(frames[0].width, frames[0].height, config.motionCell,
+                config.motionThreshold, config.motionMargin, Long.MAX_VALUE);
+        Quadrilateral_F64 wholeFrame = new Quadrilateral_F64();
+        boolean[] moving = new boolean[frames.length];
+        for (int i = 0; i < frames.length; i++) {
+            moving[i] = !gate.isStatic(frames[i], i);
+            gate.processed(frames[i], wholeFrame, false, i);
+        }
+        // The replay loops, so the first frame follows the last
+        moving[0] = !gate.isStatic(frames[0], frames.length);
+        return moving;
+    }
+
+    private static String millis(long nanos) {
+        return String.format("%.2fms", nanos / (double) TimeUnit.MILLISECONDS.toNanos(1));
+    }
+}
@@ -0,0 +1,75 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.DetectionWorkers;
+import com.justinmichaud.libgdxcardboard.desktop.Frame;
+import com.justinmichaud.libgdxcardboard.desktop.FullFrameMarkerSearch;
+import com.justinmichaud.libgdxcardboard.desktop.MarkerSearch;
+
+import java.util.concurrent.TimeUnit;
+
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Replays the recorded frames through {@link DetectionWorkers} as fast as they can be detected,
+ * for each worker count from one up to the maximum, and reports throughput and the speed-up
+ * over one worker. Throws if a frame ever comes back out of capture order.
+ * Usage: {@code ParallelDetectionTest [resolution] [max workers] [frames]}.
+ */
+public class ParallelDetectionTest {
+
+    public static void main(String[] args) throws Exception {
+        String resolution = args.length > 0 ? args[0] : "1080p";
+        int maxWorkers = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        int count = args.length > 2 ? Integer.parseInt(args[2]) : 600;
+
+        GrayU8[] frames = Fixtures.load(resolution);
+        IntrinsicParameters intrinsic = BoofProcessor.createIntrinsic(frames[0].width, frames[0].height);
+
+        double single = 0;
+        for (int k = 1; k <= maxWorkers; k++) {
+            MarkerSearch[] searches = new MarkerSearch[k];
+            for (int i = 0; i < k; i++) {
+                searches[i] = new FullFrameMarkerSearch(intrinsic);
+            }
+            double fps = run(new DetectionWorkers(searches, TimeUnit.SECONDS.toNanos(60), true), frames, count);
+            if (k == 1) single = fps;
+            System.out.printf("workers=%d fps=%.1f speedup=%.2f%n", k, fps, fps / single);
+        }
+    }
+
+    /** Detects count frames and returns the frames per second delivered in order. */
+    static double run(final DetectionWorkers workers, final GrayU8[] frames, final int count) throws Exception {
+        Thread feeder = new Thread("Replay") {
+            @Override
+            public void run() {
+                try {
+                    for (int i = 0; i < count; i++) {
+                        Frame frame = new Frame();
+                        frame.gray = frames[i % frames.length];
+                        frame.sequence = i;
+                        frame.captureNanos = System.nanoTime();
+                        workers.submit(frame, null);
+                    }
+                } catch (InterruptedException e) {
+                    // closed
+                }
+            }
+        };
+
+        long start = System.nanoTime();
+        feeder.start();
+        for (int i = 0; i < count; i++) {
+            Frame frame = workers.take();
+            if (frame.sequence != i) {
+                throw new IllegalStateException("Frame " + frame.sequence + " came back as " + i);
+            }
+            if (frame.stale) throw new IllegalStateException("Frame " + i + " went stale");
+        }
+        long elapsed = System.nanoTime() - start;
+        feeder.join();
+        workers.close();
+        return count / (elapsed / 1e9);
+    }
+}
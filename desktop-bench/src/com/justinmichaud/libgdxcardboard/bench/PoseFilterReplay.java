@@ -0,0 +1,227 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.badlogic.gdx.math.Vector3;
+import com.justinmichaud.libgdxcardboard.desktop.FilterMode;
+import com.justinmichaud.libgdxcardboard.desktop.PoseFilter;
+import com.justinmichaud.libgdxcardboard.desktop.PoseJournal;
+import com.justinmichaud.libgdxcardboard.desktop.PoseSample;
+import com.justinmichaud.libgdxcardboard.desktop.TrackerConfig;
+
+import java.io.File;
+import java.util.Random;
+
+/**
+ * Replays a head trajectory through every {@link PoseFilter} and compares their lag and jitter.
+ * Without arguments the trajectory is synthetic: rests, a sway, and quick moves, measured at
+ * 30 fps with jittered capture times, noise, and the odd lost frame, so each filter is scored
+ * against the true position. Given a {@link PoseJournal} the recorded poses are the
+ * measurements and the filters are scored against them.
+ *
+ * <p>Lag is the time shift that best lines the output up with the reference during motion;
+ * jitter is the RMS error while the head is at rest (synthetic only); roughness is the RMS
+ * second difference of the output. With prediction the filters lead by the given latency and
+ * are scored against the position at capture time plus that lead.
+ * Filter tuning comes from the usual {@code -Dtracker.filter.*} properties.
+ * Usage: {@code PoseFilterReplay [journal] [lead ms]}.
+ */
+public class PoseFilterReplay {
+
+    private static final double FPS = 30;
+    private static final double SECONDS = 24;
+    private static final long MAX_SHIFT_NANOS = 300000000L;
+
+    public static void main(String[] args) throws Exception {
+        Trace trace = args.length > 0 && !args[0].isEmpty() ? load(new File(args[0])) : synthetic();
+        long lead = args.length > 1 ? (long) (Double.parseDouble(args[1]) * 1e6) : 40000000L;
+
+        System.out.printf("%-9s %-8s %8s %10s %10s %10s%n", "filter", "predict", "lag_ms", "jitter", "rough", "rmse");
+        for (FilterMode mode : FilterMode.values()) {
+            for (long l : new long[] { 0, lead }) {
+                TrackerConfig config = TrackerConfig.fromSystemProperties();
+                config.filterMode = mode;
+                float[] out = run(PoseFilter.create(config), trace, l);
+                System.out.printf("%-9s %-8s %8.1f %10.5f %10.5f %10.5f%n", mode.name().toLowerCase(),
+                        l == 0 ? "off" : l / 1000000 + "ms", lag(trace, out, l) / 1e6,
+                        jitter(trace, out), roughness(trace, out), rmse(trace, out, l));
+            }
+        }
+    }
+
+    /** Measurements, and for synthetic traces the truth and whether the head was at rest. */
+    static class Trace {
+        int size;
+        long[] times;
+        boolean[] visible;
+        float[] measured;
+        boolean synthetic;
+        boolean[] resting;
+
+        Trace(int size) {
+            this.size = size;
+            times = new long[size];
+            visible = new boolean[size];
+            measured = new float[3 * size];
+            resting = new boolean[size];
+        }
+
+        /** The reference position at time t: the truth, or the measurements interpolated. */
+        void reference(long t, float[] into) {
+            if (synthetic) {
+                truth(t / 1e9, into);
+                return;
+            }
+            int i = 1;
+            while (i < size - 1 && times[i] < t) i++;
+            double f = (t - times[i - 1]) / (double) (times[i] - times[i - 1]);
+            f = Math.max(0, Math.min(1, f));
+            for (int a = 0; a < 3; a++) {
+                into[a] = (float) (measured[3 * (i - 1) + a] + f * (measured[3 * i + a] - measured[3 * (i - 1) + a]));
+            }
+        }
+    }
+
+    static Trace synthetic() {
+        Random random = new Random(7);
+        int size = (int) (SECONDS * FPS);
+        Trace trace = new Trace(size);
+        trace.synthetic = true;
+        float[] p = new float[3];
+        for (int i = 0; i < size; i++) {
+            double t = i / FPS + random.nextGaussian() * 0.002;
+            trace.times[i] = (long) (t * 1e9);
+            trace.visible[i] = random.nextDouble() > 0.02;
+            trace.resting[i] = truth(t, p);
+            trace.measured[3 * i] = (float) (p[0] + random.nextGaussian() * 0.01);
+            trace.measured[3 * i + 1] = (float) (p[1] + random.nextGaussian() * 0.01);
+            trace.measured[3 * i + 2] = (float) (p[2] + random.nextGaussian() * 0.03);
+        }
+        return trace;
+    }
+
+    /** Rest, sway, rest, quick moves back and forth, rest. Returns true while at rest. */
+    static boolean truth(double t, float[] into) {
+        double x = 0, y = 0, z = -5;
+        boolean rest = false;
+        if (t < 4) {
+            rest = t > 0.5;
+        } else if (t < 10) {
+            x = 0.8 * Math.sin(2 * Math.PI * 0.7 * (t - 4));
+            y = 0.3 * Math.sin(2 * Math.PI * 1.1 * (t - 4));
+        } else if (t < 14) {
+            rest = t > 10.5;
+        } else if (t < 20) {
+            double phase = (t - 14) % 1.5;
+            double s = phase < 0.3 ? minimumJerk(phase / 0.3) : phase < 0.75 ? 1
+                    : phase < 1.05 ? 1 - minimumJerk((phase - 0.75) / 0.3) : 0;
+            x = 1.2 * s;
+            z = -5 + 1.5 * s;
+        } else {
+            rest = t > 20.5;
+        }
+        into[0] = (float) x;
+        into[1] = (float) y;
+        into[2] = (float) z;
+        return rest;
+    }
+
+    private static double minimumJerk(double s) {
+        return s * s * s * (10 - 15 * s + 6 * s * s);
+    }
+
+    static Trace load(File file) throws Exception {
+        PoseJournal journal = PoseJournal.open(file);
+        try {
+            Trace trace = new Trace((int) journal.getCount());
+            PoseSample sample = new PoseSample();
+            for (int i = 0; i < trace.size; i++) {
+                journal.read(i, sample);
+                trace.times[i] = sample.captureNanos;
+                trace.visible[i] = sample.visible;
+                trace.measured[3 * i] = sample.x;
+                trace.measured[3 * i + 1] = sample.y;
+                trace.measured[3 * i + 2] = sample.z;
+            }
+            return trace;
+        } finally {
+            journal.close();
+        }
+    }
+
+    static float[] run(PoseFilter filter, Trace trace, long lead) {
+        float[] out = new float[3 * trace.size];
+        Vector3 measured = new Vector3(), position = new Vector3();
+        for (int i = 0; i < trace.size; i++) {
+            if (trace.visible[i]) measured.set(trace.measured[3 * i], trace.measured[3 * i + 1], trace.measured[3 * i + 2]);
+            else measured.set(position);
+            filter.filter(trace.times[i], measured, trace.visible[i], lead, position);
+            out[3 * i] = position.x;
+            out[3 * i + 1] = position.y;
+            out[3 * i + 2] = position.z;
+        }
+        return out;
+    }
+
+    /** Shift, in nanoseconds, that minimises the error against the reference while moving. */
+    static long lag(Trace trace, float[] out, long lead) {
+        long best = 0;
+        double bestError = Double.MAX_VALUE;
+        for (long shift = -MAX_SHIFT_NANOS; shift <= MAX_SHIFT_NANOS; shift += 1000000L) {
+            double error = error(trace, out, lead - shift, true);
+            if (error < bestError) {
+                bestError = error;
+                best = shift;
+            }
+        }
+        return best;
+    }
+
+    static double rmse(Trace trace, float[] out, long lead) {
+        return error(trace, out, lead, false);
+    }
+
+    private static double error(Trace trace, float[] out, long offset, boolean movingOnly) {
+        float[] reference = new float[3];
+        double sum = 0;
+        int n = 0;
+        for (int i = 0; i < trace.size; i++) {
+            if (!trace.visible[i] || (movingOnly && trace.resting[i])) continue;
+            trace.reference(trace.times[i] + offset, reference);
+            for (int a = 0; a < 3; a++) {
+                double d = out[3 * i + a] - reference[a];
+                sum += d * d;
+            }
+            n++;
+        }
+        return Math.sqrt(sum / Math.max(1, n));
+    }
+
+    static double jitter(Trace trace, float[] out) {
+        if (!trace.synthetic) return Double.NaN;
+        float[] reference = new float[3];
+        double sum = 0;
+        int n = 0;
+        for (int i = 0; i < trace.size; i++) {
+            if (!trace.resting[i]) continue;
+            trace.reference(trace.times[i], reference);
+            for (int a = 0; a < 3; a++) {
+                double d = out[3 * i + a] - reference[a];
+                sum += d * d;
+            }
+            n++;
+        }
+        return Math.sqrt(sum / Math.max(1, n));
+    }
+
+    static double roughness(Trace trace, float[] out) {
+        double sum = 0;
+        int n = 0;
+        for (int i = 2; i < trace.size; i++) {
+            for (int a = 0; a < 3; a++) {
+                double d = out[3 * i + a] - 2 * out[3 * (i - 1) + a] + out[3 * (i - 2) + a];
+                sum += d * d;
+            }
+            n++;
+        }
+        return Math.sqrt(sum / Math.max(1, n));
+    }
+}
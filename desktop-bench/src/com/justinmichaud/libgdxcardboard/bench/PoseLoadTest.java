@@ -0,0 +1,112 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.PoseCodec;
+import com.justinmichaud.libgdxcardboard.PoseFrame;
+import com.justinmichaud.libgdxcardboard.desktop.LatencyHistogram;
+import com.justinmichaud.libgdxcardboard.desktop.PoseBroadcastServer;
+import com.justinmichaud.libgdxcardboard.desktop.PosePublisher;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loopback load test for {@link PoseBroadcastServer}: publishes synthetic poses at the tracker
+ * rate and connects hundreds of binary clients, then reports per-client delivery and
+ * publish-to-receive latency. Usage: {@code PoseLoadTest [clients] [rateHz] [seconds]}.
+ */
+public class PoseLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        int clientCount = args.length > 0 ? Integer.parseInt(args[0]) : 300;
+        final double rate = args.length > 1 ? Double.parseDouble(args[1]) : 120;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+
+        final PosePublisher publisher = new PosePublisher();
+        final PoseBroadcastServer server = new PoseBroadcastServer(publisher, null,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        Thread serverThread = new Thread(server, "Pose server");
+        serverThread.start();
+
+        Selector selector = Selector.open();
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort());
+        long[] received = new long[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            SocketChannel channel = SocketChannel.open(address);
+            channel.write(ByteBuffer.wrap(new byte[] {PoseCodec.NEGOTIATE_BINARY}));
+            channel.configureBlocking(false);
+            ByteBuffer in = ByteBuffer.allocate(PoseCodec.FRAME_SIZE * 16);
+            channel.register(selector, SelectionKey.OP_READ, new Object[] {i, in});
+        }
+        while (server.getClientCount() < clientCount) Thread.sleep(10);
+
+        final long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        Thread tracker = new Thread("Synthetic tracker") {
+            @Override
+            public void run() {
+                long period = (long) (1e9 / rate);
+                long next = System.nanoTime();
+                float t = 0;
+                while (System.nanoTime() < endNanos) {
+                    publisher.publish((float) Math.sin(t), (float) Math.cos(t), -5, true, System.nanoTime());
+                    t += 0.01f;
+                    next += period;
+                    long wait = next - System.nanoTime();
+                    if (wait > 0) {
+                        try {
+                            Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                }
+            }
+        };
+        long startNanos = System.nanoTime();
+        tracker.start();
+
+        LatencyHistogram latency = new LatencyHistogram();
+        PoseFrame frame = new PoseFrame();
+        while (System.nanoTime() < endNanos + TimeUnit.MILLISECONDS.toNanos(200)) {
+            selector.select(50);
+            Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+            while (keys.hasNext()) {
+                SelectionKey key = keys.next();
+                keys.remove();
+                Object[] state = (Object[]) key.attachment();
+                ByteBuffer in = (ByteBuffer) state[1];
+                if (((SocketChannel) key.channel()).read(in) < 0) throw new IOException("Server closed");
+
+                in.flip();
+                while (PoseCodec.decodePose(in, frame)) {
+                    latency.record(System.nanoTime() - frame.captureNanos);
+                    received[(Integer) state[0]]++;
+                }
+                in.compact();
+            }
+        }
+        double elapsed = (System.nanoTime() - startNanos) / 1e9;
+        tracker.join();
+        server.close();
+        serverThread.join();
+
+        long published = publisher.getSequence();
+        long min = Long.MAX_VALUE, total = 0;
+        for (long count : received) {
+            min = Math.min(min, count);
+            total += count;
+        }
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("clients=%d published=%d (%.1f Hz)%n", clientCount, published, published / elapsed));
+        out.append(String.format("received per client: min=%d avg=%.1f (%.1f%% of published)%n",
+                min, total / (double) clientCount, 100.0 * total / clientCount / Math.max(1, published)));
+        latency.report("publish_to_receive", out);
+        System.out.print(out);
+    }
+}
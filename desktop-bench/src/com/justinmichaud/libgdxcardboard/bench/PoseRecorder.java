@@ -0,0 +1,100 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.PosePublisher;
+import com.justinmichaud.libgdxcardboard.desktop.PoseSample;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Records what a {@link BoofProcessor} publishes for a window of frames, from a listener on
+ * its vision thread: each pose, its capture and publish times, and the vision thread's CPU
+ * time over the window. A replayed fixture is processed frame by frame, so the same window
+ * covers the same frames in every run.
+ */
+final class PoseRecorder implements Runnable {
+
+    final int count;
+    final float[] positions;
+    final boolean[] visible;
+    final long[] captureNanos;
+    final long[] publishNanos;
+    long cpuNanos;
+
+    private final PosePublisher publisher;
+    private final long first;
+    private final PoseSample sample = new PoseSample();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final CountDownLatch done = new CountDownLatch(1);
+    private long cpuStart;
+
+    private PoseRecorder(PosePublisher publisher, long first, int count) {
+        this.publisher = publisher;
+        this.first = first;
+        this.count = count;
+        positions = new float[3 * count];
+        visible = new boolean[count];
+        captureNanos = new long[count];
+        publishNanos = new long[count];
+    }
+
+    /** Skips warmup frames, records the next count, then closes the processor. */
+    static PoseRecorder record(BoofProcessor processor, int warmup, int count) throws InterruptedException {
+        PoseRecorder recorder = new PoseRecorder(processor.getPublisher(), warmup, count);
+        processor.getPublisher().addListener(recorder);
+        recorder.done.await();
+        processor.getPublisher().removeListener(recorder);
+        processor.close();
+        return recorder;
+    }
+
+    @Override
+    public void run() {
+        publisher.read(sample);
+        long i = sample.sequence - first - 1;
+        if (i == -1) cpuStart = threads.getCurrentThreadCpuTime();
+        if (i < 0 || i >= count) return;
+
+        int n = (int) i;
+        positions[3 * n] = sample.x;
+        positions[3 * n + 1] = sample.y;
+        positions[3 * n + 2] = sample.z;
+        visible[n] = sample.visible;
+        captureNanos[n] = sample.captureNanos;
+        publishNanos[n] = sample.publishNanos;
+        if (n == count - 1) {
+            cpuNanos = threads.getCurrentThreadCpuTime() - cpuStart;
+            done.countDown();
+        }
+    }
+
+    double cpuMillisPerFrame() {
+        return cpuNanos / 1e6 / count;
+    }
+
+    /** RMS distance to the other run's poses over frames where both saw the head. */
+    double rmse(PoseRecorder other) {
+        double sum = 0;
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (!visible[i] || !other.visible[i]) continue;
+            for (int a = 0; a < 3; a++) {
+                double d = positions[3 * i + a] - other.positions[3 * i + a];
+                sum += d * d;
+            }
+            n++;
+        }
+        return Math.sqrt(sum / Math.max(1, n));
+    }
+
+    /** Frames where only one of the two runs saw the head. */
+    int visibilityDifferences(PoseRecorder other) {
+        int n = 0;
+        for (int i = 0; i < count; i++) {
+            if (visible[i] != other.visible[i]) n++;
+        }
+        return n;
+    }
+}
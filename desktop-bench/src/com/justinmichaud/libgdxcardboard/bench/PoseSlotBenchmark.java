@@ -0,0 +1,57 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.PoseSample;
+import com.justinmichaud.libgdxcardboard.desktop.PoseSlot;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One writer hammering the pose seqlock while several readers copy it out. Every field of a
+ * write is derived from its sequence number, so a torn read fails the run.
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PoseSlotBenchmark {
+
+    private final PoseSlot slot = new PoseSlot();
+    private long sequence = 0;
+
+    @State(Scope.Thread)
+    public static class Reader {
+        final PoseSample sample = new PoseSample();
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(1)
+    public void write() {
+        long s = ++sequence;
+        slot.write(s, s * 2, s * 3, (s & 1) == 0, s, s + 1, s + 2);
+    }
+
+    @Benchmark
+    @Group("contended")
+    @GroupThreads(3)
+    public PoseSample read(Reader reader) {
+        PoseSample sample = reader.sample;
+        slot.read(sample);
+
+        long s = sample.sequence;
+        if (s != 0 && (sample.captureNanos != s * 2 || sample.publishNanos != s * 3 ||
+                sample.visible != ((s & 1) == 0) ||
+                sample.x != (float) s || sample.y != (float) (s + 1) || sample.z != (float) (s + 2))) {
+            throw new IllegalStateException("Torn pose read at sequence " + s);
+        }
+        return sample;
+    }
+}
@@ -0,0 +1,87 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.badlogic.gdx.math.Vector3;
+import com.justinmichaud.libgdxcardboard.PoseStreamClient;
+import com.justinmichaud.libgdxcardboard.desktop.PoseBroadcastServer;
+import com.justinmichaud.libgdxcardboard.desktop.PosePublisher;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Runs the phone-side {@link PoseStreamClient} against a loopback pose server on the JVM: live
+ * tracking, the tracker losing the head, the stream going silent, and a tracker restart.
+ * Throws on the first check that fails. Usage: {@code PoseStreamClientTest}.
+ */
+public class PoseStreamClientTest {
+
+    private static final float SPEED = 0.5f; // units per second along x
+
+    public static void main(String[] args) throws Exception {
+        InetSocketAddress address = new InetSocketAddress(InetAddress.getLoopbackAddress(), 0);
+        PosePublisher publisher = new PosePublisher();
+        PoseBroadcastServer server = new PoseBroadcastServer(publisher, null, address, 0);
+        Thread serverThread = new Thread(server, "Pose server");
+        serverThread.start();
+        int port = server.getPort();
+
+        PoseStreamClient client = new PoseStreamClient(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        Thread clientThread = new Thread(client, "Pose stream");
+        clientThread.start();
+        while (!client.isConnected()) Thread.sleep(10);
+
+        Vector3 position = new Vector3();
+        long start = System.nanoTime();
+        float x = 0;
+        for (int i = 0; i < 60; i++) {
+            x = SPEED * (System.nanoTime() - start) / 1e9f;
+            publisher.publish(x, 0, -5, true, System.nanoTime());
+            Thread.sleep(8);
+        }
+        Thread.sleep(20);
+        check(client.getPosition(System.nanoTime(), position), "tracking while poses are live");
+        check(Math.abs(position.x - x) < 0.05f, "position follows the stream: " + position.x + " vs " + x);
+
+        publisher.publish(x, 0, -5, false, System.nanoTime());
+        Thread.sleep(20);
+        check(!client.getPosition(System.nanoTime(), position), "not tracking once the head is lost");
+        float coast = SPEED * (float) PoseStreamClient.DECAY_SECONDS;
+        check(position.x > x && position.x < x + coast + 0.02f, "dead reckoning moves on: " + position.x);
+
+        Thread.sleep(1500);
+        client.getPosition(System.nanoTime(), position);
+        check(Math.abs(position.x - (x + coast)) < 0.05f, "velocity decays to rest near " + (x + coast) + ": " + position.x);
+
+        publisher.publish(x, 0, -5, true, System.nanoTime());
+        Thread.sleep(20);
+        check(client.getPosition(System.nanoTime(), position), "tracking again after a visible pose");
+        Thread.sleep(2 * PoseStreamClient.STALE_NANOS / 1000000);
+        check(!client.getPosition(System.nanoTime(), position), "silence counts as lost");
+
+        server.close();
+        serverThread.join();
+        while (client.isConnected()) Thread.sleep(10);
+        // A restarted tracker starts its pose sequence over
+        publisher = new PosePublisher();
+        server = new PoseBroadcastServer(publisher, null, new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        serverThread = new Thread(server, "Pose server");
+        serverThread.start();
+        while (!client.isConnected()) Thread.sleep(10);
+        publisher.publish(1, 2, -3, true, System.nanoTime());
+        Thread.sleep(50);
+        check(client.getPosition(System.nanoTime(), position) && Math.abs(position.y - 2) < 1e-3f,
+                "reconnects after a server restart");
+
+        client.close();
+        clientThread.join();
+        server.close();
+        serverThread.join();
+        System.out.println("ok: received=" + client.getReceived() + " reconnects=" + client.getReconnects()
+                + " rtt=" + client.getClock().getRoundTripNanos() / 1e6 + "ms");
+    }
+
+    private static void check(boolean condition, String what) {
+        if (!condition) throw new IllegalStateException("Failed: " + what);
+        System.out.println("passed: " + what);
+    }
+}
@@ -0,0 +1,152 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.FullFrameMarkerSearch;
+import com.justinmichaud.libgdxcardboard.desktop.Markers;
+import com.justinmichaud.libgdxcardboard.desktop.PyramidMarkerSearch;
+import com.justinmichaud.libgdxcardboard.desktop.SearchMode;
+import com.justinmichaud.libgdxcardboard.desktop.TrackerConfig;
+
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Checks {@link PyramidMarkerSearch} against {@link FullFrameMarkerSearch} on every recorded
+ * frame. The pyramid must never report an id the full-frame search did not find, must find
+ * every id its coarse level saw, and must match exactly on frames where it fell back to full
+ * resolution. Ids too small to survive downsampling are counted, not failed.
+ *
+ * <p>It then zeroes every other row of the busiest frame, which leaves the markers visible
+ * once downsampled but breaks them up at full resolution. The coarse level must hit and the
+ * refine must miss, the rejected candidates must not leak out, and after the allowed number
+ * of misses the search must fall back to full resolution and recover on a clean frame.
+ * Usage: {@code PyramidSearchTest [resolution] [levels] [max misses]}.
+ */
+public class PyramidSearchTest {
+
+    public static void main(String[] args) throws Exception {
+        TrackerConfig config = TrackerConfig.fromSystemProperties();
+        String resolution = args.length > 0 ? args[0] : "1080p";
+        int levels = args.length > 1 ? Integer.parseInt(args[1]) : config.pyramidLevels;
+        int maxMisses = args.length > 2 ? Integer.parseInt(args[2]) : config.pyramidMaxMisses;
+
+        GrayU8[] frames = Fixtures.load(resolution);
+        IntrinsicParameters intrinsic = BoofProcessor.createIntrinsic(frames[0].width, frames[0].height);
+        FullFrameMarkerSearch full = new FullFrameMarkerSearch(intrinsic);
+        PyramidMarkerSearch pyramid = new PyramidMarkerSearch(intrinsic, levels, maxMisses);
+
+        Markers expected = new Markers(), actual = new Markers();
+        int markers = 0, coarseMisses = 0, fallbacks = 0;
+        int busiest = -1, busiestCount = 0;
+        for (int f = 0; f < frames.length; f++) {
+            full.search(frames[f], expected);
+            long fullRuns = runs(pyramid, SearchMode.FULL);
+            pyramid.search(frames[f], actual);
+            boolean fellBack = runs(pyramid, SearchMode.FULL) > fullRuns;
+            if (fellBack) fallbacks++;
+
+            for (int i = 0; i < actual.size; i++) {
+                if (!contains(expected, actual.id[i])) {
+                    throw new IllegalStateException("Frame " + f + ": pyramid found marker " + actual.id[i]
+                            + " that the full-frame search did not");
+                }
+            }
+            for (int i = 0; i < expected.size; i++) {
+                if (contains(actual, expected.id[i])) continue;
+                if (fellBack) {
+                    throw new IllegalStateException("Frame " + f + ": full-resolution fallback missed marker "
+                            + expected.id[i]);
+                }
+                if (contains(pyramid.getCandidates(), expected.id[i])) {
+                    throw new IllegalStateException("Frame " + f + ": coarse level found marker " + expected.id[i]
+                            + " but the full-resolution refine missed it");
+                }
+                coarseMisses++;
+            }
+            markers += expected.size;
+            if (expected.size > busiestCount) {
+                busiest = f;
+                busiestCount = expected.size;
+            }
+        }
+        if (markers == 0) throw new IllegalStateException("No markers in the fixture, nothing was compared");
+        System.out.printf("frames=%d markers=%d coarse_misses=%d fallbacks=%d%n",
+                frames.length, markers, coarseMisses, fallbacks);
+
+        checkCoarseHitFineMiss(intrinsic, levels, maxMisses, frames[busiest], busiest);
+    }
+
+    private static void checkCoarseHitFineMiss(IntrinsicParameters intrinsic, int levels, int maxMisses,
+                                               GrayU8 frame, int index) {
+        GrayU8 striped = new GrayU8(frame.width, frame.height);
+        striped.setTo(frame);
+        for (int y = 1; y < striped.height; y += 2) {
+            int row = striped.startIndex + y * striped.stride;
+            for (int x = 0; x < striped.width; x++) striped.data[row + x] = 0;
+        }
+
+        FullFrameMarkerSearch full = new FullFrameMarkerSearch(intrinsic);
+        PyramidMarkerSearch pyramid = new PyramidMarkerSearch(intrinsic, levels, maxMisses);
+        Markers expected = new Markers(), actual = new Markers();
+
+        full.search(striped, expected);
+        pyramid.search(striped, actual);
+        int candidates = pyramid.getCandidates().size;
+        if (candidates == 0 || expected.size > 0) {
+            throw new IllegalStateException("Striped copy of frame " + index + " gave " + candidates
+                    + " coarse candidates and " + expected.size + " full-resolution markers, not a coarse hit"
+                    + " with a full-resolution miss; the fixture's markers may be too small for " + levels
+                    + " pyramid levels");
+        }
+        if (actual.size > 0) {
+            throw new IllegalStateException("Pyramid reported " + actual.size
+                    + " markers the full-resolution refine rejected");
+        }
+        if (pyramid.getMisses(SearchMode.PYRAMID) != 1) {
+            throw new IllegalStateException("Coarse hit with a refine miss was not recorded as a pyramid miss");
+        }
+
+        for (int i = 1; i < maxMisses; i++) pyramid.search(striped, actual);
+        if (runs(pyramid, SearchMode.FULL) != 0) {
+            throw new IllegalStateException("Fell back to full resolution before " + maxMisses + " misses");
+        }
+        pyramid.search(striped, actual);
+        if (pyramid.getMisses(SearchMode.FULL) != 1) {
+            throw new IllegalStateException("No full-resolution fallback after " + maxMisses + " misses");
+        }
+
+        full.search(frame, expected);
+        pyramid.search(frame, actual);
+        if (pyramid.getHits(SearchMode.FULL) != 1 || !sameIds(expected, actual)) {
+            throw new IllegalStateException("Full-resolution fallback did not recover frame " + index);
+        }
+        long pyramidRuns = runs(pyramid, SearchMode.PYRAMID);
+        pyramid.search(frame, actual);
+        if (runs(pyramid, SearchMode.PYRAMID) != pyramidRuns + 1) {
+            throw new IllegalStateException("Search stayed at full resolution after recovering");
+        }
+        System.out.printf("coarse_hit_fine_miss: frame=%d candidates=%d, fell back after %d misses and recovered%n",
+                index, candidates, maxMisses);
+    }
+
+    private static long runs(PyramidMarkerSearch search, SearchMode mode) {
+        return search.getHits(mode) + search.getMisses(mode);
+    }
+
+    private static boolean contains(Markers markers, long id) {
+        for (int i = 0; i < markers.size; i++) {
+            if (markers.id[i] == id) return true;
+        }
+        return false;
+    }
+
+    private static boolean sameIds(Markers a, Markers b) {
+        for (int i = 0; i < a.size; i++) {
+            if (!contains(b, a.id[i])) return false;
+        }
+        for (int i = 0; i < b.size; i++) {
+            if (!contains(a, b.id[i])) return false;
+        }
+        return true;
+    }
+}
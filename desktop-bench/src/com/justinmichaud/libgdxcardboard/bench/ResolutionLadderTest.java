@@ -0,0 +1,84 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.badlogic.gdx.math.Vector3;
+import com.justinmichaud.libgdxcardboard.desktop.AdaptiveMarkerSearch;
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.FullFrameMarkerSearch;
+import com.justinmichaud.libgdxcardboard.desktop.HeadEstimator;
+import com.justinmichaud.libgdxcardboard.desktop.Markers;
+import com.justinmichaud.libgdxcardboard.desktop.ResolutionController;
+import com.justinmichaud.libgdxcardboard.desktop.TrackerConfig;
+
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Runs the recorded frames through {@link AdaptiveMarkerSearch} pinned to each rung of the
+ * {@code -Dtracker.resolution.ladder}, and compares the head position {@link HeadEstimator}
+ * gets from its markers with the one from full-resolution detection. Reports, per rung, the
+ * frames where the head was found at full resolution but not at the rung, and the RMS and
+ * largest position difference where both found it. Throws if a difference exceeds the
+ * tolerance, in the tracker's scene units.
+ * Usage: {@code ResolutionLadderTest [resolution] [tolerance]}.
+ */
+public class ResolutionLadderTest {
+
+    public static void main(String[] args) throws Exception {
+        String resolution = args.length > 0 ? args[0] : "1080p";
+        double tolerance = args.length > 1 ? Double.parseDouble(args[1]) : 0.05;
+
+        GrayU8[] frames = Fixtures.load(resolution);
+        int width = frames[0].width, height = frames[0].height;
+        IntrinsicParameters intrinsic = BoofProcessor.createIntrinsic(width, height);
+        TrackerConfig config = TrackerConfig.fromSystemProperties();
+
+        FullFrameMarkerSearch full = new FullFrameMarkerSearch(intrinsic);
+        Markers markers = new Markers();
+        Quadrilateral_F64 location = new Quadrilateral_F64();
+        boolean[] expectedVisible = new boolean[frames.length];
+        Vector3[] expected = new Vector3[frames.length];
+        for (int f = 0; f < frames.length; f++) {
+            full.search(frames[f], markers);
+            expected[f] = new Vector3();
+            expectedVisible[f] = HeadEstimator.fromMarkers(markers, width, height, location, null, expected[f]);
+        }
+
+        ResolutionController ladder = controller(width, height, config.resolutionLadder, config);
+        Vector3 actual = new Vector3();
+        double worst = 0;
+        System.out.printf("%-10s %8s %8s %10s %10s%n", "rung", "found", "missed", "rms", "max");
+        for (int r = 0; r < ladder.getRungCount(); r++) {
+            int[] rung = { ladder.getHeight(r) };
+            AdaptiveMarkerSearch search = new AdaptiveMarkerSearch(intrinsic, controller(width, height, rung, config));
+
+            int found = 0, missed = 0;
+            double sum = 0, max = 0;
+            for (int f = 0; f < frames.length; f++) {
+                search.search(frames[f], markers);
+                boolean visible = HeadEstimator.fromMarkers(markers, width, height, location, null, actual);
+                if (!expectedVisible[f]) continue;
+                if (!visible) {
+                    missed++;
+                    continue;
+                }
+                double d = actual.dst(expected[f]);
+                sum += d * d;
+                max = Math.max(max, d);
+                found++;
+            }
+            System.out.printf("%-10s %8d %8d %10.5f %10.5f%n", ladder.getWidth(r) + "x" + ladder.getHeight(r),
+                    found, missed, Math.sqrt(sum / Math.max(1, found)), max);
+            worst = Math.max(worst, max);
+        }
+        if (worst > tolerance) {
+            throw new IllegalStateException("Head position differs from full resolution by " + worst
+                    + ", more than " + tolerance);
+        }
+    }
+
+    private static ResolutionController controller(int width, int height, int[] ladder, TrackerConfig config) {
+        return new ResolutionController(width, height, ladder, config.sourceFps,
+                config.resolutionMinMarker, config.resolutionHoldFrames);
+    }
+}
@@ -0,0 +1,116 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.PoseCodec;
+import com.justinmichaud.libgdxcardboard.PoseFrame;
+import com.justinmichaud.libgdxcardboard.desktop.LatencyHistogram;
+import com.justinmichaud.libgdxcardboard.desktop.PoseBroadcastServer;
+import com.justinmichaud.libgdxcardboard.desktop.PosePublisher;
+import com.justinmichaud.libgdxcardboard.desktop.PoseSample;
+import com.justinmichaud.libgdxcardboard.desktop.SharedPoseReader;
+import com.justinmichaud.libgdxcardboard.desktop.SharedPoseWriter;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares publish-to-observe latency of the shared-memory pose file against a loopback binary
+ * socket client, both fed by the same synthetic tracker. The shared-memory reader busy-polls
+ * the sequence word, the way a render loop would check it once per frame.
+ * Usage: {@code SharedPoseLatencyTest [rateHz] [seconds] [file]}.
+ */
+public class SharedPoseLatencyTest {
+
+    public static void main(String[] args) throws Exception {
+        final double rate = args.length > 0 ? Double.parseDouble(args[0]) : 120;
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        File path = args.length > 2 ? new File(args[2]) : File.createTempFile("poses", ".shm");
+
+        final PosePublisher publisher = new PosePublisher();
+        SharedPoseWriter writer = new SharedPoseWriter(publisher, path, 256);
+        PoseBroadcastServer server = new PoseBroadcastServer(publisher, null,
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        Thread serverThread = new Thread(server, "Pose server");
+        serverThread.start();
+
+        final long endNanos = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+        final LatencyHistogram shared = new LatencyHistogram();
+        final LatencyHistogram socket = new LatencyHistogram();
+        final long[] counts = new long[2];
+
+        final SharedPoseReader reader = new SharedPoseReader(path);
+        Thread sharedThread = new Thread("Shared memory reader") {
+            @Override
+            public void run() {
+                PoseSample sample = new PoseSample();
+                long last = 0;
+                while (System.nanoTime() < endNanos) {
+                    if (reader.getSequence() == last) continue;
+                    reader.readLatest(sample);
+                    shared.record(System.nanoTime() - sample.captureNanos);
+                    last = sample.sequence;
+                    counts[0]++;
+                }
+            }
+        };
+
+        final SocketChannel channel = SocketChannel.open(
+                new InetSocketAddress(InetAddress.getLoopbackAddress(), server.getPort()));
+        channel.write(ByteBuffer.wrap(new byte[] {PoseCodec.NEGOTIATE_BINARY}));
+        channel.socket().setSoTimeout(100);
+        while (server.getClientCount() < 1) Thread.sleep(10);
+        Thread socketThread = new Thread("Socket reader") {
+            @Override
+            public void run() {
+                ByteBuffer in = ByteBuffer.allocate(PoseCodec.FRAME_SIZE * 16);
+                PoseFrame frame = new PoseFrame();
+                try {
+                    while (System.nanoTime() < endNanos) {
+                        if (channel.read(in) < 0) return;
+                        in.flip();
+                        while (PoseCodec.decodePose(in, frame)) {
+                            socket.record(System.nanoTime() - frame.captureNanos);
+                            counts[1]++;
+                        }
+                        in.compact();
+                    }
+                } catch (IOException e) {
+                    if (System.nanoTime() < endNanos) e.printStackTrace();
+                }
+            }
+        };
+        sharedThread.start();
+        socketThread.start();
+
+        long period = (long) (1e9 / rate);
+        long next = System.nanoTime();
+        float t = 0;
+        while (System.nanoTime() < endNanos) {
+            publisher.publish((float) Math.sin(t), (float) Math.cos(t), -5, true, System.nanoTime());
+            t += 0.01f;
+            next += period;
+            long wait = next - System.nanoTime();
+            if (wait > 0) Thread.sleep(wait / 1000000, (int) (wait % 1000000));
+        }
+
+        sharedThread.join();
+        channel.close();
+        socketThread.join();
+        server.close();
+        serverThread.join();
+        reader.close();
+        writer.close();
+        if (args.length <= 2) path.delete();
+
+        StringBuilder out = new StringBuilder();
+        out.append(String.format("published=%d shared=%d socket=%d%n",
+                publisher.getSequence(), counts[0], counts[1]));
+        shared.report("shared_memory", out);
+        socket.report("socket", out);
+        System.out.print(out);
+    }
+}
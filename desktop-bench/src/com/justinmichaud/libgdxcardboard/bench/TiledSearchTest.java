@@ -0,0 +1,79 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.FullFrameMarkerSearch;
+import com.justinmichaud.libgdxcardboard.desktop.Markers;
+import com.justinmichaud.libgdxcardboard.desktop.TiledMarkerSearch;
+import com.justinmichaud.libgdxcardboard.desktop.TrackerConfig;
+
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Checks {@link TiledMarkerSearch} against {@link FullFrameMarkerSearch} on every recorded
+ * frame: both must find the same marker ids, and each pair must agree on centre, width and
+ * height. By default the geometry must be identical up to floating-point rounding, since each
+ * tile's detector works in crop coordinates; pass a tolerance in pixels to loosen that, e.g.
+ * for an overlap too small for the largest marker. Tiling comes from the usual
+ * {@code -Dtracker.tiles.*} properties. Throws on the first frame that differs.
+ * Usage: {@code TiledSearchTest [resolution] [tolerance px]}.
+ */
+public class TiledSearchTest {
+
+    private static final double ROUNDING = 1e-6;
+
+    public static void main(String[] args) throws Exception {
+        String resolution = args.length > 0 ? args[0] : "1080p";
+        double tolerance = args.length > 1 ? Double.parseDouble(args[1]) : 0;
+
+        GrayU8[] frames = Fixtures.load(resolution);
+        IntrinsicParameters intrinsic = BoofProcessor.createIntrinsic(frames[0].width, frames[0].height);
+        TrackerConfig config = TrackerConfig.fromSystemProperties();
+        FullFrameMarkerSearch full = new FullFrameMarkerSearch(intrinsic);
+        TiledMarkerSearch tiled = new TiledMarkerSearch(intrinsic, config.tileColumns, config.tileRows,
+                config.tileOverlap, config.tileThreads);
+
+        Markers expected = new Markers(), actual = new Markers();
+        int markers = 0;
+        double worst = 0;
+        for (int f = 0; f < frames.length; f++) {
+            full.search(frames[f], expected);
+            tiled.search(frames[f], actual);
+            if (expected.size != actual.size) {
+                throw new IllegalStateException("Frame " + f + ": full frame found " + expected.size
+                        + " markers, tiled found " + actual.size);
+            }
+
+            boolean[] matched = new boolean[actual.size];
+            for (int i = 0; i < expected.size; i++) {
+                int best = -1;
+                double bestError = Double.MAX_VALUE;
+                for (int j = 0; j < actual.size; j++) {
+                    if (matched[j] || actual.id[j] != expected.id[i]) continue;
+                    double error = error(expected, i, actual, j);
+                    if (error < bestError) {
+                        best = j;
+                        bestError = error;
+                    }
+                }
+                if (best < 0 || bestError > tolerance + ROUNDING) {
+                    throw new IllegalStateException("Frame " + f + ": marker " + expected.id[i] + " at "
+                            + expected.centreX[i] + "," + expected.centreY[i]
+                            + (best < 0 ? " not found by tiled search" : " off by " + bestError + " px"));
+                }
+                matched[best] = true;
+                worst = Math.max(worst, bestError);
+                markers++;
+            }
+        }
+        if (markers == 0) throw new IllegalStateException("No markers in the fixture, nothing was compared");
+        System.out.printf("frames=%d markers=%d worst_difference=%.3gpx, all within %.1fpx%n",
+                frames.length, markers, worst, tolerance);
+    }
+
+    /** Largest difference in centre or size between marker i of a and marker j of b. */
+    private static double error(Markers a, int i, Markers b, int j) {
+        return Math.max(Math.max(Math.abs(a.centreX[i] - b.centreX[j]), Math.abs(a.centreY[i] - b.centreY[j])),
+                Math.max(Math.abs(a.width[i] - b.width[j]), Math.abs(a.height[i] - b.height[j])));
+    }
+}
@@ -0,0 +1,67 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.badlogic.gdx.math.Vector3;
+import com.justinmichaud.libgdxcardboard.desktop.BoofProcessor;
+import com.justinmichaud.libgdxcardboard.desktop.FullFrameMarkerSearch;
+import com.justinmichaud.libgdxcardboard.desktop.HeadEstimator;
+import com.justinmichaud.libgdxcardboard.desktop.Markers;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import boofcv.abst.tracker.TrackerObjectQuad;
+import boofcv.factory.tracker.FactoryTrackerObjectQuad;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Circulant tracker updates between detections, initialised from the head markers in the
+ * first recorded frame.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TrackerBenchmark {
+
+    @Param({"1080p", "720p"})
+    public String resolution;
+
+    private GrayU8[] frames;
+    private TrackerObjectQuad<GrayU8> tracker;
+    private final Quadrilateral_F64 location = new Quadrilateral_F64();
+    private int next;
+
+    @Setup
+    public void setup() throws IOException {
+        frames = Fixtures.load(resolution);
+        GrayU8 first = frames[0];
+
+        Markers markers = new Markers();
+        new FullFrameMarkerSearch(BoofProcessor.createIntrinsic(first.width, first.height))
+                .search(first, markers);
+        if (!HeadEstimator.fromMarkers(markers, first.width, first.height, location, null,
+                new Vector3())) {
+            throw new IllegalStateException("No head markers in the first " + resolution + " frame");
+        }
+
+        tracker = FactoryTrackerObjectQuad.circulant(null, GrayU8.class);
+        tracker.initialize(first, location);
+        next = 1 % frames.length;
+    }
+
+    @Benchmark
+    public boolean process() {
+        GrayU8 frame = frames[next];
+        next = (next + 1) % frames.length;
+        return tracker.process(frame, location);
+    }
+}
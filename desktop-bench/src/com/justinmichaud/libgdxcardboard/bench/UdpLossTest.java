@@ -0,0 +1,133 @@
+package com.justinmichaud.libgdxcardboard.bench;
+
+import com.justinmichaud.libgdxcardboard.PoseCodec;
+import com.justinmichaud.libgdxcardboard.PoseFrame;
+import com.justinmichaud.libgdxcardboard.UdpPoseReceiver;
+import com.justinmichaud.libgdxcardboard.desktop.PosePublisher;
+import com.justinmichaud.libgdxcardboard.desktop.UdpPoseStreamer;
+
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Loopback check of the UDP pose stream through a relay that drops and reorders datagrams.
+ * Fails if the receiver ever hands out a pose older than one it already returned, or if after
+ * a tracker restart, whose poses are numbered from 1 again, it never hands out a pose.
+ * Usage: {@code UdpLossTest [lossPercent] [reorderPercent] [poses]}.
+ */
+public class UdpLossTest {
+
+    public static void main(String[] args) throws Exception {
+        final double loss = (args.length > 0 ? Double.parseDouble(args[0]) : 10) / 100;
+        final double reorder = (args.length > 1 ? Double.parseDouble(args[1]) : 10) / 100;
+        int poses = args.length > 2 ? Integer.parseInt(args[2]) : 2000;
+        final InetAddress loopback = InetAddress.getLoopbackAddress();
+
+        PosePublisher publisher = new PosePublisher();
+        UdpPoseStreamer streamer = new UdpPoseStreamer(publisher, new InetSocketAddress(loopback, 0));
+        Thread streamerThread = new Thread(streamer, "UDP streamer");
+        streamerThread.start();
+
+        final DatagramSocket relay = new DatagramSocket(new InetSocketAddress(loopback, 0));
+        relay.setSoTimeout(500);
+        final InetSocketAddress serverAddress = new InetSocketAddress(loopback, streamer.getPort());
+        UdpPoseReceiver receiver = new UdpPoseReceiver(
+                new InetSocketAddress(loopback, relay.getLocalPort()), new InetSocketAddress(loopback, 0));
+        final InetSocketAddress clientAddress = new InetSocketAddress(loopback, receiver.getLocalPort());
+
+        final long[] forwarded = new long[3];
+        Thread relayThread = new Thread("Lossy relay") {
+            @Override
+            public void run() {
+                Random random = new Random(42);
+                byte[] buffer = new byte[PoseCodec.FRAME_SIZE * 2];
+                byte[] held = null;
+                try {
+                    while (!relay.isClosed()) {
+                        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+                        try {
+                            relay.receive(packet);
+                        } catch (SocketTimeoutException e) {
+                            continue;
+                        }
+                        if (!packet.getSocketAddress().equals(serverAddress)) {
+                            relay.send(new DatagramPacket(packet.getData(), packet.getLength(), serverAddress));
+                            continue;
+                        }
+
+                        byte[] data = Arrays.copyOf(packet.getData(), packet.getLength());
+                        if (random.nextDouble() < loss) {
+                            forwarded[1]++;
+                        } else if (held == null && random.nextDouble() < reorder) {
+                            held = data;
+                            forwarded[2]++;
+                        } else {
+                            relay.send(new DatagramPacket(data, data.length, clientAddress));
+                            forwarded[0]++;
+                            if (held != null) {
+                                relay.send(new DatagramPacket(held, held.length, clientAddress));
+                                held = null;
+                            }
+                        }
+                    }
+                } catch (Exception e) {
+                    if (!relay.isClosed()) e.printStackTrace();
+                }
+            }
+        };
+        relayThread.start();
+
+        PoseFrame pose = new PoseFrame();
+        long lastReturned = 0, returned = 0;
+        while (receiver.getReceived() == 0) {
+            publisher.publish(0, 0, -5, true, System.nanoTime());
+            Thread.sleep(20);
+            receiver.poll(pose);
+        }
+
+        for (int i = 0; i < poses; i++) {
+            publisher.publish(i, i, -5, true, System.nanoTime());
+            Thread.sleep(1);
+            if (receiver.poll(pose)) {
+                if (pose.sequence <= lastReturned) {
+                    throw new IllegalStateException("Pose " + pose.sequence + " returned after " + lastReturned);
+                }
+                lastReturned = pose.sequence;
+                returned++;
+            }
+        }
+
+        System.out.printf("published=%d forwarded=%d dropped=%d reordered=%d%n",
+                publisher.getSequence(), forwarded[0], forwarded[1], forwarded[2]);
+        System.out.printf("received=%d stale_discarded=%d gaps=%d returned=%d, all in order%n",
+                receiver.getReceived(), receiver.getStale(), receiver.getGaps(), returned);
+
+        streamer.close();
+        streamerThread.join();
+        publisher = new PosePublisher();
+        streamer = new UdpPoseStreamer(publisher, serverAddress);
+        streamerThread = new Thread(streamer, "UDP streamer");
+        streamerThread.start();
+        long deadline = System.nanoTime() + 3 * UdpPoseReceiver.KEEPALIVE_MS * 1000000L;
+        boolean resumed = false;
+        while (!resumed && System.nanoTime() < deadline) {
+            publisher.publish(0, 0, -5, true, System.nanoTime());
+            Thread.sleep(5);
+            resumed = receiver.poll(pose);
+        }
+
+        receiver.close();
+        streamer.close();
+        relay.close();
+        streamerThread.join();
+        relayThread.join();
+
+        if (!resumed) throw new IllegalStateException("No pose returned after a tracker restart");
+        System.out.println("resumed after a tracker restart");
+    }
+}
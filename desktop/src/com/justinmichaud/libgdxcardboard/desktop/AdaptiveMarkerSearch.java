@@ -0,0 +1,128 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import boofcv.abst.fiducial.FiducialDetector;
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Full-frame detection at the resolution the {@link ResolutionController} picks. Below full
+ * resolution the frame is box-filtered down and detected with intrinsics scaled to match, and
+ * the marker poses are projected back through the full-resolution intrinsics, so marker
+ * positions and sizes, and the published head position, come out the same at every rung.
+ */
+public class AdaptiveMarkerSearch extends MarkerSearch {
+
+    private final ResolutionController controller;
+    private final MarkerProjector projector;
+    private final FiducialDetector<GrayU8>[] detectors;
+    private final GrayU8[] images;
+    private final int[][] columnStarts;
+    private final int[][] rowStarts;
+
+    private boolean visible = false;
+    private double markerPixels = 0;
+    private boolean searched = false;
+
+    @SuppressWarnings("unchecked")
+    public AdaptiveMarkerSearch(IntrinsicParameters intrinsic, ResolutionController controller) {
+        this.controller = controller;
+        projector = new MarkerProjector(intrinsic);
+
+        int rungs = controller.getRungCount();
+        detectors = (FiducialDetector<GrayU8>[]) new FiducialDetector<?>[rungs];
+        images = new GrayU8[rungs];
+        columnStarts = new int[rungs][];
+        rowStarts = new int[rungs][];
+        for (int r = 0; r < rungs; r++) {
+            int width = controller.getWidth(r), height = controller.getHeight(r);
+            detectors[r] = createDetector(scale(intrinsic, width, height));
+            if (width == intrinsic.getWidth() && height == intrinsic.getHeight()) continue;
+
+            images[r] = new GrayU8(width, height);
+            columnStarts[r] = footprints(intrinsic.getWidth(), width);
+            rowStarts[r] = footprints(intrinsic.getHeight(), height);
+        }
+    }
+
+    /** Intrinsics for the same camera seen through an image resized to width by height. */
+    static IntrinsicParameters scale(IntrinsicParameters full, int width, int height) {
+        double sx = width / (double) full.getWidth(), sy = height / (double) full.getHeight();
+        IntrinsicParameters scaled = new IntrinsicParameters(full);
+        scaled.setFx(full.getFx() * sx);
+        scaled.setFy(full.getFy() * sy);
+        scaled.setCx((full.getCx() + 0.5) * sx - 0.5);
+        scaled.setCy((full.getCy() + 0.5) * sy - 0.5);
+        scaled.setWidth(width);
+        scaled.setHeight(height);
+        return scaled;
+    }
+
+    /** First source pixel under each output pixel, with one extra entry closing the last. */
+    private static int[] footprints(int source, int output) {
+        int[] starts = new int[output + 1];
+        for (int i = 0; i <= output; i++) {
+            starts[i] = (int) ((long) i * source / output);
+        }
+        return starts;
+    }
+
+    @Override
+    public void search(GrayU8 input, Markers found) {
+        found.reset();
+        int rung = controller.getRung();
+        long start = System.nanoTime();
+
+        GrayU8 image = input;
+        if (images[rung] != null) {
+            image = images[rung];
+            resize(input, image, columnStarts[rung], rowStarts[rung]);
+        }
+        detectors[rung].detect(image);
+        projector.addAll(detectors[rung], found);
+
+        controller.detected(System.nanoTime() - start);
+        searched = true;
+        record(SearchMode.ADAPTIVE, found.size > 0);
+    }
+
+    @Override
+    public void update(Quadrilateral_F64 head, boolean visible) {
+        this.visible = visible && HeadEstimator.isFinite(head);
+        markerPixels = this.visible ? head.c.x - head.a.x : 0;
+    }
+
+    @Override
+    public void frameProcessed(long nanos) {
+        controller.frame(nanos, searched, visible, markerPixels);
+        searched = false;
+    }
+
+    @Override
+    public void report(StringBuilder out) {
+        int rung = controller.getRung();
+        out.append(String.format("resolution %dx%d switches=%d frame_time=%.2fms budget=%.2fms\n",
+                controller.getWidth(rung), controller.getHeight(rung), controller.getSwitches(),
+                controller.getFrameNanos() / 1e6, controller.getBudgetNanos() / 1e6));
+    }
+
+    /** Box filter: each output pixel averages the source pixels under it. */
+    static void resize(GrayU8 input, GrayU8 output, int[] columns, int[] rows) {
+        for (int y = 0; y < output.height; y++) {
+            int y0 = rows[y], y1 = Math.max(y0 + 1, rows[y + 1]);
+            int dst = output.startIndex + y * output.stride;
+            for (int x = 0; x < output.width; x++) {
+                int x0 = columns[x], x1 = Math.max(x0 + 1, columns[x + 1]);
+                int sum = 0;
+                for (int sy = y0; sy < y1; sy++) {
+                    int src = input.startIndex + sy * input.stride;
+                    for (int sx = x0; sx < x1; sx++) {
+                        sum += input.data[src + sx] & 0xFF;
+                    }
+                }
+                int count = (y1 - y0) * (x1 - x0);
+                output.data[dst++] = (byte) ((sum + count / 2) / count);
+            }
+        }
+    }
+}
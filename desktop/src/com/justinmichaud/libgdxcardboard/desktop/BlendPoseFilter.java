@@ -0,0 +1,19 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * The original fixed blend of 20% previous output and 80% measurement per frame. It does not
+ * look at timestamps or predict, and it keeps blending towards whatever measurement it is given
+ * while the head is lost, as the tracker always has.
+ */
+public class BlendPoseFilter extends PoseFilter {
+
+    private final Vector3 position = new Vector3();
+
+    @Override
+    public void filter(long captureNanos, Vector3 measured, boolean visible, long leadNanos, Vector3 out) {
+        HeadEstimator.smooth(position, measured);
+        out.set(position);
+    }
+}
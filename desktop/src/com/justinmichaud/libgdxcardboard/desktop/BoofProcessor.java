@@ -1,37 +1,34 @@
 package com.justinmichaud.libgdxcardboard.desktop;
 
-import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector3;
-import com.github.sarxos.webcam.Webcam;
 
 import java.awt.Color;
+import java.awt.Dimension;
 import java.awt.Graphics2D;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
 
-import boofcv.abst.fiducial.FiducialDetector;
 import boofcv.abst.tracker.TrackerObjectQuad;
-import boofcv.alg.geo.PerspectiveOps;
-import boofcv.alg.geo.WorldToCameraToPixel;
-import boofcv.factory.fiducial.ConfigFiducialBinary;
-import boofcv.factory.fiducial.FactoryFiducial;
-import boofcv.factory.filter.binary.ConfigThreshold;
-import boofcv.factory.filter.binary.ThresholdType;
 import boofcv.factory.tracker.FactoryTrackerObjectQuad;
 import boofcv.gui.image.ImagePanel;
 import boofcv.gui.image.ShowImages;
 import boofcv.io.image.ConvertBufferedImage;
-import boofcv.io.webcamcapture.UtilWebcamCapture;
 import boofcv.struct.calib.IntrinsicParameters;
 import boofcv.struct.image.GrayU8;
-import georegression.struct.point.Point2D_F64;
-import georegression.struct.point.Point3D_F64;
-import georegression.struct.se.Se3_F64;
 import georegression.struct.shapes.Quadrilateral_F64;
 
 public class BoofProcessor extends Thread {
 
-    private Webcam camera;
-    private FiducialDetector<GrayU8> detector;
+    /** Frames the tracker may carry the head without a detection confirming it. */
+    private static final int MAX_TRACKER_FRAMES = 60;
+
+    private FrameSource source;
+    private MarkerSearch search;
+    private final Markers markers = new Markers();
     private IntrinsicParameters intrinsicParameters;
     private ImagePanel gui;
     private int trackerFrames = 0;
@@ -40,25 +37,44 @@ public class BoofProcessor extends Thread {
     private TrackerObjectQuad<GrayU8> tracker;
     private Quadrilateral_F64 location;
 
+    private DetectionScheduler scheduler;
+    private CornerTracker corners;
+
+    private MotionGate motionGate;
+    private DetectionWorkers workers;
+
     private final Vector3 position = new Vector3();
+    private final Vector3 measured = new Vector3();
+    private final PoseFilter filter;
+    private final boolean predict;
+    private final PosePublisher publisher = new PosePublisher();
+
+    private final TrackerMetrics metrics = new TrackerMetrics();
+    private final RateLimitedLog errorLog = new RateLimitedLog(5000);
 
-    public BoofProcessor() {
-        camera = UtilWebcamCapture.openDefault(1920, 1080);
+    private final FrameRing<Frame> captured = new FrameRing<Frame>(2);
+    private final FrameRing<Frame> displayed = new FrameRing<Frame>(2);
+    private final FramePool pool;
+    private final boolean replayEveryFrame;
 
-        intrinsicParameters = new IntrinsicParameters();
-        intrinsicParameters.setCx(camera.getViewSize().getWidth()/2f);
-        intrinsicParameters.setCy(camera.getViewSize().getHeight()/2f);
-        intrinsicParameters.setFx(1);
-        intrinsicParameters.setFy(1);
-        intrinsicParameters.setWidth((int)camera.getViewSize().getWidth());
-        intrinsicParameters.setHeight((int)camera.getViewSize().getHeight());
+    private FrameCaptureRing captureRing;
+    private final int captureRingLostFrames;
+    private int lostFrames = 0;
+
+    private final Thread captureThread;
+    private Thread presentThread;
+
+    public BoofProcessor() throws IOException {
+        this(TrackerConfig.fromSystemProperties());
+    }
 
-        detector = FactoryFiducial.squareBinary(
-                new ConfigFiducialBinary(1),
-                ConfigThreshold.local(ThresholdType.LOCAL_SQUARE, 10),
-                //ConfigThreshold.fixed(100),
-                GrayU8.class);
-        detector.setIntrinsic(intrinsicParameters);
+    public BoofProcessor(TrackerConfig config) throws IOException {
+        source = FrameSource.open(config);
+        replayEveryFrame = source.getPacing() == FrameSource.Pacing.FAST;
+
+        intrinsicParameters = createIntrinsic(source.getWidth(), source.getHeight());
+
+        search = MarkerSearch.create(config, intrinsicParameters);
 
         tracker =
                 FactoryTrackerObjectQuad.circulant(null, GrayU8.class);
@@ -69,162 +85,369 @@ public class BoofProcessor extends Thread {
 // 				FactoryTrackerObjectQuad.meanShiftLikelihood(30,5,255, MeanShiftLikelihoodType.HISTOGRAM,ImageType.pl(3,GrayU8.class));
 
         location = new Quadrilateral_F64();
+        filter = PoseFilter.create(config);
+        predict = config.filterPredict;
+
+        int w = intrinsicParameters.getWidth(), h = intrinsicParameters.getHeight();
+        if (config.detectionWorkers > 1) {
+            MarkerSearch[] searches = new MarkerSearch[config.detectionWorkers];
+            for (int i = 0; i < searches.length; i++) {
+                searches[i] = new FullFrameMarkerSearch(intrinsicParameters);
+            }
+            workers = new DetectionWorkers(searches,
+                    (long) (config.workerMaxLatencyMillis * TimeUnit.MILLISECONDS.toNanos(1)),
+                    replayEveryFrame);
+        }
+        else if (config.detectionInterval > 1) {
+            scheduler = new DetectionScheduler(config.detectionInterval, config.cornerMaxError,
+                    config.cornerReinitDistance);
+            corners = new CornerTracker(w, h, 3);
+        }
+        if (config.motionGate && workers == null) {
+            motionGate = new MotionGate(w, h, config.motionCell, config.motionThreshold, config.motionMargin,
+                    (long) (config.motionMaxSkipMillis * TimeUnit.MILLISECONDS.toNanos(1)));
+        }
+        int inFlight = workers == null ? captured.capacity() : workers.capacity();
+        pool = new FramePool(w, h, inFlight + displayed.capacity() + 3);
+
+        int ringFrames = (int) Math.ceil(config.captureRingSeconds * config.sourceFps);
+        if (ringFrames > 0) {
+            captureRing = new FrameCaptureRing(w, h, ringFrames, new File(config.captureRingDirectory),
+                    (long) (config.captureRingMinIntervalSeconds * TimeUnit.SECONDS.toNanos(1)),
+                    config.captureRingMaxAutomatic);
+        }
+        captureRingLostFrames = config.captureRingLostFrames;
+
+        captureThread = new Thread("Frame capture") {
+            @Override
+            public void run() {
+                capture();
+            }
+        };
+        captureThread.setDaemon(true);
+        captureThread.start();
+
+        if (config.showGui) {
+            gui = new ImagePanel();
+            gui.setPreferredSize(new Dimension(w, h));
+            ShowImages.showWindow(gui,"Head Position Tracker",true);
+
+            presentThread = new Thread("Frame presentation") {
+                @Override
+                public void run() {
+                    present();
+                }
+            };
+            presentThread.setDaemon(true);
+            presentThread.start();
+        }
 
-        gui = new ImagePanel();
-        gui.setPreferredSize(camera.getViewSize());
-        ShowImages.showWindow(gui,"Head Position Tracker",true);
+        setName("Fiducial detection");
         setDaemon(true);
         start();
     }
 
     @Override
     public void run() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        boolean cpuTime = threads.isCurrentThreadCpuTimeSupported();
         while (true) {
-            BufferedImage image = camera.getImage();
-            GrayU8 input = ConvertBufferedImage.convertFrom(image, (GrayU8) null);
-            Graphics2D g2 = image.createGraphics();
-            g2.setColor(Color.RED);
+            Frame frame;
+            try {
+                if (workers != null) frame = workers.take();
+                else frame = replayEveryFrame ? captured.take() : captured.takeLatest(pool);
+            } catch (InterruptedException e) {
+                if (workers != null) workers.close();
+                return;
+            }
+            if (frame.stale) {
+                pool.recycle(frame);
+                continue;
+            }
+
+            long detectNanos = System.nanoTime();
+            metrics.captureToDetect.record(detectNanos - frame.captureNanos);
+
+            long cpuStart = cpuTime ? threads.getCurrentThreadCpuTime() : 0;
+            process(frame);
+            if (cpuTime) metrics.frameCpu(threads.getCurrentThreadCpuTime() - cpuStart);
+
+            long published = System.nanoTime();
+            metrics.detectToPublish.record(published - detectNanos);
+            search.frameProcessed(published - detectNanos);
+            metrics.published(published);
 
-            WorldToCameraToPixel transform;
-            float xAvg = 0, yAvg = 0, zAvg = 0;
-            int samples = 0;
+            if (gui == null) {
+                pool.recycle(frame);
+                continue;
+            }
+            Frame evicted = displayed.offer(frame);
+            if (evicted != null) pool.recycle(evicted);
+        }
+    }
 
+    private void capture() {
+        try {
+            captureFrames();
+        } finally {
             try {
-                location.a.set(0,0);
-                location.b.set(0,0);
-                location.c.set(0,0);
-                location.d.set(0,0);
-
-                detector.detect(input);
-
-                Se3_F64 targetToSensor = new Se3_F64();
-                for (int i = 0; i < detector.totalFound(); i++) {
-                    if (detector.getId(i) != 284 && detector.getId(i) != 643) {
-                        System.out.println("Skipping unknown id " + detector.getId(i));
-                        continue;
-                    }
-
-                    detector.getFiducialToCamera(i, targetToSensor);
-
-                    transform = PerspectiveOps.createWorldToPixel(intrinsicParameters, targetToSensor);
-                    Point2D_F64 width = transform.transform(
-                            new Point3D_F64(detector.getWidth(i), detector.getWidth(i), 0));
-                    Point2D_F64 centre = transform.transform(
-                            new Point3D_F64(0, 0, 0));
-
-                    double w = Math.abs(width.getX() - centre.getX());
-                    double h = Math.abs(width.getY() - centre.getY());
-                    int tlx = (int) (centre.getX() - w / 2.0);
-                    int tly = (int) (centre.getY() - h / 2.0);
-
-                    g2.drawRect(tlx, tly, (int) w, (int) h);
-
-                    location.a.x+=tlx;
-                    location.a.y+=tly;
-                    location.b.x+=tlx+w;
-                    location.b.y+=tly;
-                    location.c.x+=tlx+w;
-                    location.c.y+=tly+w;
-                    location.d.x+=tlx;
-                    location.d.y+=tly+w;
-
-                    xAvg += (float) centre.getX();
-                    yAvg += (float) centre.getY();
-                    zAvg += (float) w;
-                    samples += 1;
-                }
-            } catch (Exception e) {
+                source.close();
+            } catch (IOException e) {
                 e.printStackTrace();
             }
+        }
+    }
 
-            if (samples > 0) {
-                location.a.x /= samples;
-                location.a.y /= samples;
-                location.b.x /= samples;
-                location.b.y /= samples;
-                location.c.x /= samples;
-                location.c.y /= samples;
-                location.d.x /= samples;
-                location.d.y /= samples;
-                tracker.initialize(input, location);
-                trackerFrames = 0;
-
-                xAvg /= samples;
-                yAvg /= samples;
-                zAvg /= samples;
-
-                xAvg = (xAvg / camera.getViewSize().width - 0.5f) * 5;
-                yAvg = -(yAvg / camera.getViewSize().height - 0.5f) * 5;
-                zAvg = (zAvg/(camera.getViewSize().width/6f)) * 5;
-                isHeadVisible = true;
+    private void captureFrames() {
+        long sequence = 0;
+        while (!Thread.currentThread().isInterrupted()) {
+            Frame frame = pool.acquire();
+            try {
+                if (!source.read(frame.gray)) {
+                    System.out.println("Frame source finished");
+                    pool.recycle(frame);
+                    return;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+                pool.recycle(frame);
+                return;
             }
-            else {
-                boolean visible = tracker.process(input,location);
-
-                if (visible && trackerFrames < 60 &&
-                        !Double.isNaN(location.a.x) &&
-                        !Double.isNaN(location.a.y) &&
-                        !Double.isNaN(location.b.x) &&
-                        !Double.isNaN(location.b.y) &&
-                        !Double.isNaN(location.c.x) &&
-                        !Double.isNaN(location.c.y) &&
-                        !Double.isNaN(location.d.x) &&
-                        !Double.isNaN(location.d.y)) {
-                    g2.setColor(Color.GREEN);
-                    g2.drawRect((int) location.a.x,
-                            (int) location.a.y,
-                            (int) (location.c.x - location.a.x),
-                            (int) (location.c.y - location.a.y));
-
-                    xAvg += location.a.x;
-                    xAvg += location.b.x;
-                    xAvg += location.c.x;
-                    xAvg += location.d.x;
-                    yAvg += location.a.y;
-                    yAvg += location.b.y;
-                    yAvg += location.c.y;
-                    yAvg += location.d.y;
-                    samples = 4;
-                    xAvg /= samples;
-                    yAvg /= samples;
-                    zAvg = (float) (location.c.x - location.a.x);
-                    xAvg = (xAvg / camera.getViewSize().width - 0.5f) * 5;
-                    yAvg = -(yAvg / camera.getViewSize().height - 0.5f) * 5;
-                    zAvg = (zAvg/(camera.getViewSize().width/6f)) * 5;
-
-                    trackerFrames++;
-                    isHeadVisible = true;
+            frame.captureNanos = System.nanoTime();
+            long recorded = source.getRecordedNanos();
+            frame.recordedNanos = recorded < 0 ? frame.captureNanos : recorded;
+            frame.sequence = sequence++;
+            if (captureRing != null) captureRing.add(frame.gray, frame.recordedNanos);
+
+            try {
+                if (workers != null) {
+                    workers.submit(frame, pool);
+                    continue;
                 }
-                else {
-                    xAvg = position.x;
-                    yAvg = position.y;
-                    zAvg = position.z;
-                    isHeadVisible = false;
+                if (replayEveryFrame) {
+                    captured.put(frame);
+                    continue;
                 }
+            } catch (InterruptedException e) {
+                return;
             }
+            Frame evicted = captured.offer(frame);
+            if (evicted != null) pool.recycle(evicted);
+        }
+    }
 
-            xAvg = MathUtils.clamp(xAvg, -2.5f, 2.5f);
-            yAvg = MathUtils.clamp(yAvg, -2.5f, 2.5f);
-            zAvg = MathUtils.clamp(zAvg, 2f, 10f)-10;
+    private void present() {
+        int w = intrinsicParameters.getWidth(), h = intrinsicParameters.getHeight();
+        BufferedImage[] images = new BufferedImage[2];
+        Graphics2D[] graphics = new Graphics2D[2];
+        for (int i = 0; i < images.length; i++) {
+            images[i] = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+            graphics[i] = images[i].createGraphics();
+        }
+        int current = 0;
+
+        while (true) {
+            Frame frame;
+            try {
+                frame = displayed.takeLatest(pool);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            current = (current + 1) % images.length;
+            BufferedImage image = images[current];
+            ConvertBufferedImage.convertTo(frame.gray, image);
 
-            synchronized (position) {
-                position.x = 0.2f * position.x + xAvg * 0.8f;
-                position.y = 0.2f * position.y + yAvg * 0.8f;
-                position.z = 0.2f * position.z + zAvg * 0.8f;
+            Graphics2D g2 = graphics[current];
+            g2.setColor(Color.RED);
+            for (int i = 0; i < frame.markers; i++) {
+                int[] r = frame.markerRects;
+                g2.drawRect(r[4*i], r[4*i+1], r[4*i+2], r[4*i+3]);
+            }
+            if (frame.tracked) {
+                g2.setColor(Color.GREEN);
+                g2.drawRect(frame.trackedRect[0], frame.trackedRect[1],
+                        frame.trackedRect[2], frame.trackedRect[3]);
             }
 
             gui.setBufferedImage(image);
+            pool.recycle(frame);
         }
     }
 
-    public void getPosition(Vector3 target) {
-        synchronized (position) {
-            target.set(position);
+    private void process(Frame frame) {
+        GrayU8 input = frame.gray;
+        frame.clearOverlay();
+
+        if (motionGate != null && motionGate.isStatic(input, frame.recordedNanos)) {
+            if (isHeadVisible) setTracked(frame);
+            metrics.frameSkipped();
+        }
+        else {
+            detectOrTrack(frame);
+            if (motionGate != null) motionGate.processed(input, location, isHeadVisible, frame.recordedNanos);
+        }
+
+        lostFrames = isHeadVisible ? 0 : lostFrames + 1;
+        if (captureRing != null && captureRingLostFrames > 0 && lostFrames == captureRingLostFrames) {
+            captureRing.triggerAutomatic("lost");
         }
+
+        HeadEstimator.clamp(measured);
+        long lead = predict ? System.nanoTime() - frame.captureNanos : 0;
+        filter.filter(frame.recordedNanos, measured, isHeadVisible, lead, position);
+        publisher.publish(position.x, position.y, position.z, isHeadVisible, frame.captureNanos + lead);
+    }
+
+    private void detectOrTrack(Frame frame) {
+        GrayU8 input = frame.gray;
+
+        boolean detected = false;
+        boolean searched = false;
+        if (workers != null) {
+            detected = HeadEstimator.fromMarkers(frame.found, input.width, input.height,
+                    location, frame, measured);
+        }
+        else if (scheduler == null || scheduler.shouldDetect(corners)) {
+            detected = detect(frame);
+            searched = true;
+        }
+
+        boolean tracked = false;
+        if (!detected) {
+            if (scheduler == null) tracked = tracker.process(input, location);
+            else tracked = corners.process(input, location);
+            tracked = tracked && trackerFrames < MAX_TRACKER_FRAMES && HeadEstimator.isFinite(location);
+
+            // Corner flow lost the head between scheduled detections: look for it now
+            if (!tracked && !searched && scheduler != null) detected = detect(frame);
+        }
+
+        if (detected) {
+            if (scheduler == null) tracker.initialize(input, location);
+            else scheduler.detected(corners, input, location, markers);
+            trackerFrames = 0;
+            isHeadVisible = true;
+            metrics.frameDetected();
+        }
+        else if (tracked) {
+            setTracked(frame);
+            HeadEstimator.fromQuad(location, input.width, input.height, measured);
+
+            trackerFrames++;
+            if (scheduler != null) scheduler.tracked();
+            isHeadVisible = true;
+            metrics.frameTracked();
+        }
+        else {
+            measured.set(position);
+            isHeadVisible = false;
+            metrics.frameLost();
+        }
+
+        search.update(location, isHeadVisible);
+    }
+
+    /** Full marker search on the frame; true if it found the head. */
+    private boolean detect(Frame frame) {
+        GrayU8 input = frame.gray;
+        try {
+            search.search(input, markers);
+            return HeadEstimator.fromMarkers(markers, input.width, input.height, location, frame, measured);
+        } catch (Exception e) {
+            errorLog.log("Marker search failed", e);
+            return false;
+        }
+    }
+
+    private void setTracked(Frame frame) {
+        frame.setTracked((int) location.a.x,
+                (int) location.a.y,
+                (int) (location.c.x - location.a.x),
+                (int) (location.c.y - location.a.y));
+    }
+
+    /** Stops capture, detection and presentation, and closes the frame source. */
+    public void close() {
+        captureThread.interrupt();
+        interrupt();
+        if (presentThread != null) presentThread.interrupt();
+    }
+
+    /** Saves the recent frames in the capture ring, if it is enabled. Safe from any thread. */
+    public void triggerCapture(String reason) {
+        if (captureRing != null) captureRing.trigger(reason);
+    }
+
+    public static IntrinsicParameters createIntrinsic(int width, int height) {
+        IntrinsicParameters intrinsic = new IntrinsicParameters();
+        intrinsic.setCx(width/2f);
+        intrinsic.setCy(height/2f);
+        intrinsic.setFx(1);
+        intrinsic.setFy(1);
+        intrinsic.setWidth(width);
+        intrinsic.setHeight(height);
+        return intrinsic;
+    }
+
+    /**
+     * Copies the latest published pose, position and visibility from the same frame, into a
+     * sample the caller owns. Safe from any thread.
+     */
+    public void read(PoseSample target) {
+        publisher.read(target);
+    }
+
+    public PosePublisher getPublisher() {
+        return publisher;
+    }
+
+    public TrackerMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getCaptureQueueDepth() {
+        return captured.size();
+    }
+
+    public long getCaptureDrops() {
+        return captured.getDropped();
+    }
+
+    public int getDisplayQueueDepth() {
+        return displayed.size();
+    }
+
+    public long getDisplayDrops() {
+        return displayed.getDropped();
+    }
+
+    public MarkerSearch getMarkerSearch() {
+        return search;
+    }
+
+    /** Null unless detection runs on a cadence. */
+    public DetectionScheduler getDetectionScheduler() {
+        return scheduler;
+    }
+
+    /** Null unless detection runs on parallel workers. */
+    public DetectionWorkers getDetectionWorkers() {
+        return workers;
+    }
+
+    /** Null unless motion gating is enabled. */
+    public MotionGate getMotionGate() {
+        return motionGate;
+    }
+
+    public long getFramePoolMisses() {
+        return pool.getMisses();
     }
 
-    public boolean isHeadVisible() {
-        return isHeadVisible;
+    /** Id of the thread reading frames from the source, for per-thread accounting. */
+    public long getCaptureThreadId() {
+        return captureThread.getId();
     }
 
 }
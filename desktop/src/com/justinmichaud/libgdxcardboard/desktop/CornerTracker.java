@@ -0,0 +1,269 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import boofcv.struct.image.GrayU8;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Follows the head quad from frame to frame by tracking the corners of the detected head
+ * markers with pyramidal Lucas-Kanade optical flow on a small window around each one, then
+ * moving and scaling the quad the way those corners moved. The quad's own corners can't be
+ * tracked directly: with two markers they are an average and lie on no image feature. Far
+ * cheaper than re-running detection or re-training the circulant tracker, and good enough for
+ * the few frames between detections.
+ *
+ * <p>Each step reports how well the corner windows still match; the
+ * {@link DetectionScheduler} uses that to ask for a detection early.
+ */
+public class CornerTracker {
+
+    private static final int HALF_WINDOW = 7;
+    private static final int MAX_ITERATIONS = 10;
+    private static final double MIN_STEP = 0.01;
+    private static final double MIN_EIGENVALUE = 1e-3;
+
+    private final int levels;
+    private GrayU8[] previous;
+    private GrayU8[] current;
+
+    private static final int MAX_POINTS = 4 * Frame.MAX_MARKERS;
+
+    private final double[] pointX = new double[MAX_POINTS];
+    private final double[] pointY = new double[MAX_POINTS];
+    private final double[] startX = new double[MAX_POINTS];
+    private final double[] startY = new double[MAX_POINTS];
+    private final boolean[] lost = new boolean[MAX_POINTS];
+    private int points = 0;
+
+    private final Quadrilateral_F64 startQuad = new Quadrilateral_F64();
+    private final Quadrilateral_F64 estimate = new Quadrilateral_F64();
+    private boolean tracking = false;
+    private double error = 0;
+
+    private final float[] gradX = new float[(2 * HALF_WINDOW + 1) * (2 * HALF_WINDOW + 1)];
+    private final float[] gradY = new float[gradX.length];
+    private final float[] template = new float[gradX.length];
+
+    public CornerTracker(int width, int height, int levels) {
+        this.levels = levels;
+        previous = createPyramid(width, height, levels);
+        current = createPyramid(width, height, levels);
+    }
+
+    private static GrayU8[] createPyramid(int width, int height, int levels) {
+        GrayU8[] pyramid = new GrayU8[levels];
+        pyramid[0] = new GrayU8(width, height);
+        for (int l = 1; l < levels; l++) {
+            pyramid[l] = new GrayU8(pyramid[l - 1].width / 2, pyramid[l - 1].height / 2);
+        }
+        return pyramid;
+    }
+
+    /** Starts tracking quad, built from the head markers in markers, from image. */
+    public void initialize(GrayU8 image, Quadrilateral_F64 quad, Markers markers) {
+        buildPyramid(image, previous);
+        points = 0;
+        for (int m = 0; m < markers.size && points < MAX_POINTS; m++) {
+            if (!HeadEstimator.isHeadMarker(markers.id[m])) continue;
+            double x0 = markers.centreX[m] - markers.width[m] / 2, x1 = x0 + markers.width[m];
+            double y0 = markers.centreY[m] - markers.height[m] / 2, y1 = y0 + markers.height[m];
+            addPoint(x0, y0);
+            addPoint(x1, y0);
+            addPoint(x1, y1);
+            addPoint(x0, y1);
+        }
+        startQuad.set(quad);
+        estimate.set(quad);
+        tracking = points >= 2;
+        error = 0;
+    }
+
+    private void addPoint(double x, double y) {
+        pointX[points] = startX[points] = x;
+        pointY[points] = startY[points] = y;
+        lost[points] = false;
+        points++;
+    }
+
+    /**
+     * Moves the marker corners onto image and writes the fitted quad to quad. Returns false,
+     * and stops tracking, once fewer than two corners can still be followed.
+     */
+    public boolean process(GrayU8 image, Quadrilateral_F64 quad) {
+        if (!tracking) return false;
+
+        buildPyramid(image, current);
+        double totalError = 0;
+        int tracked = 0;
+        for (int i = 0; i < points; i++) {
+            if (lost[i]) continue;
+            double residual = trackPoint(i);
+            if (residual < 0) lost[i] = true;
+            else {
+                totalError += residual;
+                tracked++;
+            }
+        }
+
+        GrayU8[] swap = previous;
+        previous = current;
+        current = swap;
+        if (tracked < 2) {
+            tracking = false;
+            return false;
+        }
+
+        error = totalError / tracked;
+        fitQuad();
+        quad.set(estimate);
+        return true;
+    }
+
+    /** Moves and scales the starting quad the way the surviving points moved. */
+    private void fitQuad() {
+        double sx = 0, sy = 0, cx = 0, cy = 0;
+        int n = 0;
+        for (int i = 0; i < points; i++) {
+            if (lost[i]) continue;
+            sx += startX[i];
+            sy += startY[i];
+            cx += pointX[i];
+            cy += pointY[i];
+            n++;
+        }
+        sx /= n;
+        sy /= n;
+        cx /= n;
+        cy /= n;
+
+        double startSpread = 0, spread = 0;
+        for (int i = 0; i < points; i++) {
+            if (lost[i]) continue;
+            startSpread += Math.hypot(startX[i] - sx, startY[i] - sy);
+            spread += Math.hypot(pointX[i] - cx, pointY[i] - cy);
+        }
+        double scale = startSpread > 0 ? spread / startSpread : 1;
+
+        for (int i = 0; i < 4; i++) {
+            Point2D_F64 from = corner(startQuad, i);
+            corner(estimate, i).set(cx + scale * (from.x - sx), cy + scale * (from.y - sy));
+        }
+    }
+
+    public boolean isTracking() {
+        return tracking;
+    }
+
+    public void stop() {
+        tracking = false;
+    }
+
+    /** Mean absolute intensity difference over the corner windows in the last step. */
+    public double getError() {
+        return error;
+    }
+
+    /** Largest distance in pixels between the tracked quad and quad. */
+    public double distanceTo(Quadrilateral_F64 quad) {
+        double max = 0;
+        for (int i = 0; i < 4; i++) {
+            max = Math.max(max, corner(estimate, i).distance(corner(quad, i)));
+        }
+        return max;
+    }
+
+    private void buildPyramid(GrayU8 image, GrayU8[] pyramid) {
+        pyramid[0].setTo(image);
+        for (int l = 1; l < levels; l++) {
+            PyramidMarkerSearch.downsample(pyramid[l - 1], pyramid[l]);
+        }
+    }
+
+    /** Tracks one point coarse to fine. Returns the final residual, or -1 if it was lost. */
+    private double trackPoint(int i) {
+        double guessX = 0, guessY = 0;
+        double residual = 0;
+        for (int l = levels - 1; l >= 0; l--) {
+            double scale = 1.0 / (1 << l);
+            double px = pointX[i] * scale, py = pointY[i] * scale;
+            GrayU8 prev = previous[l], next = current[l];
+            if (!inside(prev, px, py)) return -1;
+
+            double gxx = 0, gxy = 0, gyy = 0;
+            int k = 0;
+            for (int dy = -HALF_WINDOW; dy <= HALF_WINDOW; dy++) {
+                for (int dx = -HALF_WINDOW; dx <= HALF_WINDOW; dx++, k++) {
+                    float ix = (sample(prev, px + dx + 1, py + dy) - sample(prev, px + dx - 1, py + dy)) / 2;
+                    float iy = (sample(prev, px + dx, py + dy + 1) - sample(prev, px + dx, py + dy - 1)) / 2;
+                    gradX[k] = ix;
+                    gradY[k] = iy;
+                    template[k] = sample(prev, px + dx, py + dy);
+                    gxx += ix * ix;
+                    gxy += ix * iy;
+                    gyy += iy * iy;
+                }
+            }
+            double det = gxx * gyy - gxy * gxy;
+            double trace = gxx + gyy;
+            double minEigen = (trace - Math.sqrt(Math.max(0, trace * trace - 4 * det))) / 2;
+            if (minEigen / gradX.length < MIN_EIGENVALUE) return -1;
+
+            double vx = 0, vy = 0;
+            for (int iteration = 0; iteration < MAX_ITERATIONS; iteration++) {
+                double qx = px + guessX + vx, qy = py + guessY + vy;
+                if (!inside(next, qx, qy)) return -1;
+
+                double bx = 0, by = 0;
+                residual = 0;
+                k = 0;
+                for (int dy = -HALF_WINDOW; dy <= HALF_WINDOW; dy++) {
+                    for (int dx = -HALF_WINDOW; dx <= HALF_WINDOW; dx++, k++) {
+                        float diff = template[k] - sample(next, qx + dx, qy + dy);
+                        bx += diff * gradX[k];
+                        by += diff * gradY[k];
+                        residual += Math.abs(diff);
+                    }
+                }
+                double stepX = (gyy * bx - gxy * by) / det;
+                double stepY = (gxx * by - gxy * bx) / det;
+                vx += stepX;
+                vy += stepY;
+                if (stepX * stepX + stepY * stepY < MIN_STEP * MIN_STEP) break;
+            }
+
+            if (l > 0) {
+                guessX = 2 * (guessX + vx);
+                guessY = 2 * (guessY + vy);
+            } else {
+                pointX[i] += guessX + vx;
+                pointY[i] += guessY + vy;
+            }
+        }
+        return residual / gradX.length;
+    }
+
+    private static boolean inside(GrayU8 image, double x, double y) {
+        int margin = HALF_WINDOW + 2;
+        return x >= margin && y >= margin && x < image.width - margin && y < image.height - margin;
+    }
+
+    /** Bilinear sample; callers keep the window inside the image. */
+    private static float sample(GrayU8 image, double x, double y) {
+        int x0 = (int) x, y0 = (int) y;
+        float fx = (float) (x - x0), fy = (float) (y - y0);
+        int i = image.startIndex + y0 * image.stride + x0;
+        byte[] data = image.data;
+        float top = (data[i] & 0xFF) * (1 - fx) + (data[i + 1] & 0xFF) * fx;
+        float bottom = (data[i + image.stride] & 0xFF) * (1 - fx) + (data[i + image.stride + 1] & 0xFF) * fx;
+        return top * (1 - fy) + bottom * fy;
+    }
+
+    private static Point2D_F64 corner(Quadrilateral_F64 quad, int i) {
+        switch (i) {
+            case 0: return quad.a;
+            case 1: return quad.b;
+            case 2: return quad.c;
+            default: return quad.d;
+        }
+    }
+}
@@ -1,50 +1,58 @@
 package com.justinmichaud.libgdxcardboard.desktop;
 
-import com.badlogic.gdx.math.Vector3;
-
-import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.PrintWriter;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
 
 public class DesktopLauncher {
+
+    public static final int POSE_PORT = 6789;
+
 	public static void main (String[] arg) throws IOException {
-		BoofProcessor processor = new BoofProcessor();
-
-        ServerSocket welcomeSocket = new ServerSocket(6789);
-        Vector3 target = new Vector3();
-
-        while(true)
-        {
-            try {
-                Socket connectionSocket = welcomeSocket.accept();
-                System.out.println("Connected to client!");
-                BufferedReader inFromClient =
-                        new BufferedReader(new InputStreamReader(connectionSocket.getInputStream()));
-                PrintWriter outToClient = new PrintWriter(connectionSocket.getOutputStream());
-
-                while (!connectionSocket.isClosed() && connectionSocket.isConnected()) {
-                    String output;
-                    if (!processor.isHeadVisible()) output = "null";
-                    else {
-                        processor.getPosition(target);
-                        output = target.toString();
-                    }
-                    outToClient.println(output);
-                    outToClient.flush();
-                    Thread.sleep(25);
-                }
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-            System.out.println("Disconnected from client");
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                e.printStackTrace();
-            }
+		TrackerConfig config = TrackerConfig.fromSystemProperties();
+		BoofProcessor processor = new BoofProcessor(config);
+		if (config.metricsPort > 0) new MetricsServer(processor, config.metricsPort);
+
+        if (config.udpPort > 0) {
+            UdpPoseStreamer udp = new UdpPoseStreamer(processor.getPublisher(),
+                    new InetSocketAddress(config.udpPort));
+            Thread udpThread = new Thread(udp, "UDP pose streamer");
+            udpThread.setDaemon(true);
+            udpThread.start();
+            System.out.println("Streaming head poses over UDP on port " + udp.getPort());
         }
+
+        if (config.sharedPoseFile != null) {
+            new SharedPoseWriter(processor.getPublisher(), new File(config.sharedPoseFile),
+                    config.sharedPoseHistory);
+            System.out.println("Sharing head poses in " + config.sharedPoseFile);
+        }
+
+        if (config.journalFile != null) {
+            new PoseJournalRecorder(processor.getPublisher(), new File(config.journalFile),
+                    config.journalCapacity);
+            System.out.println("Recording head poses to " + config.journalFile);
+        }
+
+        PoseServer server = createServer(config, processor.getPublisher(), processor.getMetrics(),
+                new InetSocketAddress(POSE_PORT));
+        System.out.println("Serving head poses on port " + server.getPort());
+        server.run();
 	}
+
+    /** Creates the pose server selected by the config. */
+    public static PoseServer createServer(TrackerConfig config, PosePublisher publisher, TrackerMetrics metrics,
+                                          InetSocketAddress address) throws IOException {
+        long minIntervalNanos = config.poseMaxRate > 0 ? (long) (1e9 / config.poseMaxRate) : 0;
+        if (config.serverMode == ServerMode.SELECTOR) {
+            return new PoseBroadcastServer(publisher, metrics, address, minIntervalNanos);
+        }
+
+        ThreadPerConnectionServer server = new ThreadPerConnectionServer(publisher, metrics, address,
+                minIntervalNanos, config.serverMode == ServerMode.VIRTUAL);
+        if (config.serverMode == ServerMode.VIRTUAL && !server.isVirtual()) {
+            System.out.println("Virtual threads need JDK 21; using platform threads");
+        }
+        return server;
+    }
 }
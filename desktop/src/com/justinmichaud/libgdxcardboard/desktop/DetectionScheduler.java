@@ -0,0 +1,68 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Decides which frames get a full marker detection. Detection runs every interval frames, and
+ * on any frame where the corner tracker is not tracking or its windows stopped matching well;
+ * in between, the {@link CornerTracker} carries the quad forward. Every detection re-anchors the
+ * corner tracker on the detected markers; it counts as a reinitialization when the tracker had
+ * been lost or its last estimate was more than a few pixels off the detection.
+ */
+public class DetectionScheduler {
+
+    private final int interval;
+    private final double maxTrackingError;
+    private final double reinitializeDistance;
+
+    private int sinceDetection = 0;
+
+    private final AtomicLong detections = new AtomicLong();
+    private final AtomicLong trackedFrames = new AtomicLong();
+    private final AtomicLong reinitializations = new AtomicLong();
+
+    public DetectionScheduler(int interval, double maxTrackingError, double reinitializeDistance) {
+        this.interval = interval;
+        this.maxTrackingError = maxTrackingError;
+        this.reinitializeDistance = reinitializeDistance;
+    }
+
+    public boolean shouldDetect(CornerTracker corners) {
+        return !corners.isTracking() || sinceDetection + 1 >= interval
+                || corners.getError() > maxTrackingError;
+    }
+
+    /**
+     * Called after markers were detected as quad. Compares the detection with the tracker's
+     * current estimate, without stepping optical flow onto the frame, then anchors the tracker
+     * on the frame and the detected markers.
+     */
+    public void detected(CornerTracker corners, GrayU8 image, Quadrilateral_F64 quad, Markers markers) {
+        sinceDetection = 0;
+        detections.incrementAndGet();
+        if (!corners.isTracking() || corners.distanceTo(quad) > reinitializeDistance) {
+            reinitializations.incrementAndGet();
+        }
+        corners.initialize(image, quad, markers);
+    }
+
+    public void tracked() {
+        sinceDetection++;
+        trackedFrames.incrementAndGet();
+    }
+
+    public long getDetections() {
+        return detections.get();
+    }
+
+    public long getTrackedFrames() {
+        return trackedFrames.get();
+    }
+
+    public long getReinitializations() {
+        return reinitializations.get();
+    }
+}
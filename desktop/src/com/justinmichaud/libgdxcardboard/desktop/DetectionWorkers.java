@@ -0,0 +1,162 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Runs marker detection on several frames at once, one worker thread per {@link MarkerSearch}
+ * so no detector is shared. Frames are ticketed in capture order as workers take them off the
+ * queue, and a {@link ReorderBuffer} hands them back in that order whatever order the workers
+ * finish in, so tracking and smoothing downstream still see a monotonic time series.
+ *
+ * <p>A worker that picks up a frame already older than the latency bound marks it stale
+ * instead of detecting on it; the frame still comes back through the buffer so the tickets stay
+ * contiguous. With a non-blocking submit the oldest queued frame is handed straight back to the
+ * recycler when all workers are busy, as {@link FrameRing#takeLatest} does between stages; it
+ * never had a ticket, so the capture thread never waits on the reorder buffer. A blocking submit
+ * waits, which is what replayed footage wants. With blocking submits nothing is marked stale
+ * either, so a replay is detected the same way every time.
+ */
+public class DetectionWorkers {
+
+    private final long maxLatencyNanos;
+    private final boolean blocking;
+    private final ArrayBlockingQueue<Frame> work;
+    private final ReorderBuffer<Frame> results;
+    private final Thread[] threads;
+    private final RateLimitedLog errorLog = new RateLimitedLog(5000);
+
+    /** Held by a worker across taking a frame and ticketing it, so tickets follow queue order. */
+    private final ReentrantLock takeLock = new ReentrantLock();
+    private long nextTicket = 0;
+
+    private final AtomicLong detected = new AtomicLong();
+    private final AtomicLong stale = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public DetectionWorkers(MarkerSearch[] searches, long maxLatencyNanos, boolean blocking) {
+        this.maxLatencyNanos = maxLatencyNanos;
+        this.blocking = blocking;
+        work = new ArrayBlockingQueue<Frame>(searches.length);
+        results = new ReorderBuffer<Frame>(4 * searches.length);
+
+        threads = new Thread[searches.length];
+        for (int i = 0; i < searches.length; i++) {
+            final MarkerSearch search = searches[i];
+            threads[i] = new Thread("Detection worker " + i) {
+                @Override
+                public void run() {
+                    work(search);
+                }
+            };
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+    }
+
+    /** Frames in flight at once, at most: queued, being detected, and waiting to be reordered. */
+    public int capacity() {
+        return 2 * threads.length + results.capacity();
+    }
+
+    /**
+     * Called by the capture thread only. Queues frame for detection. Without blocking, a full
+     * queue gives up its oldest frame to the recycler, if there is one, and never waits.
+     */
+    public void submit(Frame frame, FrameRing.Recycler<Frame> recycler) throws InterruptedException {
+        frame.stale = false;
+        if (blocking) {
+            work.put(frame);
+            return;
+        }
+        while (!work.offer(frame)) {
+            Frame oldest = work.poll();
+            if (oldest == null) continue;
+            dropped.incrementAndGet();
+            if (recycler != null) recycler.recycle(oldest);
+        }
+    }
+
+    /**
+     * Called by the vision thread only. Blocks until the next frame in capture order is back.
+     * Frames marked stale were not searched and should be recycled.
+     */
+    public Frame take() throws InterruptedException {
+        return results.take();
+    }
+
+    private void work(MarkerSearch search) {
+        while (true) {
+            Frame frame;
+            try {
+                frame = next();
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            frame.found.reset();
+            if (!blocking && System.nanoTime() - frame.captureNanos > maxLatencyNanos) {
+                frame.stale = true;
+                stale.incrementAndGet();
+            } else {
+                try {
+                    search.search(frame.gray, frame.found);
+                } catch (Exception e) {
+                    errorLog.log("Marker search failed", e);
+                    frame.found.reset();
+                }
+                detected.incrementAndGet();
+            }
+
+            try {
+                results.put(frame.ticket, frame);
+            } catch (InterruptedException e) {
+                return;
+            }
+        }
+    }
+
+    private Frame next() throws InterruptedException {
+        takeLock.lockInterruptibly();
+        try {
+            Frame frame = work.take();
+            frame.ticket = nextTicket++;
+            return frame;
+        } finally {
+            takeLock.unlock();
+        }
+    }
+
+    public void close() {
+        for (Thread thread : threads) {
+            thread.interrupt();
+        }
+    }
+
+    public int getThreads() {
+        return threads.length;
+    }
+
+    public int getQueued() {
+        return work.size();
+    }
+
+    public int getReordering() {
+        return results.waiting();
+    }
+
+    public long getDetected() {
+        return detected.get();
+    }
+
+    /** Frames a worker gave up on because they were past the latency bound when it got to them. */
+    public long getStale() {
+        return stale.get();
+    }
+
+    /** Queued frames given up to make room for a newer one. */
+    public long getDropped() {
+        return dropped.get();
+    }
+}
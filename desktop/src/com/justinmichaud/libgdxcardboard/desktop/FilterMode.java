@@ -0,0 +1,7 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+public enum FilterMode {
+    BLEND,
+    KALMAN,
+    ONE_EURO
+}
@@ -0,0 +1,50 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * One camera frame as it moves through the capture, detection and presentation stages,
+ * together with the overlay the detection stage wants drawn on it.
+ */
+public class Frame {
+
+    public static final int MAX_MARKERS = 8;
+
+    public long sequence;
+    public long captureNanos;
+    /** When the source recorded the frame, for replays; the same as captureNanos when live. */
+    public long recordedNanos;
+    public GrayU8 gray;
+
+    /** Set when detection runs on parallel workers: the frame's place in capture order. */
+    public long ticket;
+    public boolean stale;
+    public final Markers found = new Markers();
+
+    public int markers;
+    public final int[] markerRects = new int[4 * MAX_MARKERS];
+    public boolean tracked;
+    public final int[] trackedRect = new int[4];
+
+    public void clearOverlay() {
+        markers = 0;
+        tracked = false;
+    }
+
+    public void addMarker(int x, int y, int w, int h) {
+        if (markers == MAX_MARKERS) return;
+        int i = 4 * markers++;
+        markerRects[i] = x;
+        markerRects[i + 1] = y;
+        markerRects[i + 2] = w;
+        markerRects[i + 3] = h;
+    }
+
+    public void setTracked(int x, int y, int w, int h) {
+        tracked = true;
+        trackedRect[0] = x;
+        trackedRect[1] = y;
+        trackedRect[2] = w;
+        trackedRect[3] = h;
+    }
+}
@@ -0,0 +1,148 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Keeps the last few seconds of captured gray frames in a preallocated off-heap ring so a
+ * tracking glitch can be reproduced later. When triggered, the capture thread freezes the ring
+ * and a background thread writes it to a {@link RawFrameFile} that {@link RawFrameFileSource}
+ * can replay; frames captured while that write is running are not kept.
+ *
+ * <p>Automatic triggers, such as losing the head, are rate limited: one save per minimum
+ * interval and a fixed number of saves per run, since each one is the whole ring. Operator
+ * triggers are not limited.
+ */
+public class FrameCaptureRing {
+
+    private final int width, height, frameSize, capacity;
+    private final long minIntervalNanos;
+    private final int maxAutomatic;
+    private final ByteBuffer frames;
+    private final long[] timestamps;
+    private final File directory;
+    private final ExecutorService writer;
+
+    /** Frames added so far; capture thread only. */
+    private long written = 0;
+    private volatile String requested = null;
+    private volatile boolean frozen = false;
+    private long lastAutomaticNanos = 0;
+    private int automaticSaves = 0;
+
+    /**
+     * Throws IllegalArgumentException if the ring would not fit in one direct buffer, which is
+     * limited to 2 GB.
+     */
+    public FrameCaptureRing(int width, int height, int capacity, File directory,
+                            long minIntervalNanos, int maxAutomatic) {
+        long bytes = (long) width * height * capacity;
+        if (width <= 0 || height <= 0 || capacity <= 0 || bytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Capture ring of " + capacity + " frames of " + width + "x"
+                    + height + " needs " + bytes + " bytes; at most " + Integer.MAX_VALUE + " fit");
+        }
+        this.width = width;
+        this.height = height;
+        this.capacity = capacity;
+        this.directory = directory;
+        this.minIntervalNanos = minIntervalNanos;
+        this.maxAutomatic = maxAutomatic;
+        frameSize = width * height;
+        frames = ByteBuffer.allocateDirect((int) bytes);
+        timestamps = new long[capacity];
+        writer = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable task) {
+                Thread thread = new Thread(task, "Frame capture writer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+    }
+
+    /** Capture thread only. Copies the frame into the ring unless a flush is in progress. */
+    public void add(GrayU8 gray, long captureNanos) {
+        String reason = requested;
+        if (reason != null && !frozen) {
+            requested = null;
+            frozen = true;
+            final long end = written;
+            final String name = reason;
+            writer.execute(new Runnable() {
+                @Override
+                public void run() {
+                    flush(end, name);
+                }
+            });
+        }
+        if (frozen) return;
+
+        int slot = (int) (written % capacity);
+        long base = (long) slot * frameSize;
+        for (int y = 0; y < height; y++) {
+            frames.position((int) (base + (long) y * width));
+            frames.put(gray.data, gray.startIndex + y * gray.stride, width);
+        }
+        timestamps[slot] = captureNanos;
+        written++;
+    }
+
+    /**
+     * Asks for the ring to be saved, tagged with reason. Safe to call from any thread; ignored
+     * while an earlier capture is still being written.
+     */
+    public void trigger(String reason) {
+        if (!frozen) requested = reason;
+    }
+
+    /**
+     * Like {@link #trigger}, for saves the tracker asks for itself. Ignored within the minimum
+     * interval of the last one, and once the maximum number of them have been saved. Vision
+     * thread only.
+     */
+    public void triggerAutomatic(String reason) {
+        long now = System.nanoTime();
+        if (frozen || automaticSaves >= maxAutomatic) return;
+        if (automaticSaves > 0 && now - lastAutomaticNanos < minIntervalNanos) return;
+        automaticSaves++;
+        lastAutomaticNanos = now;
+        requested = reason;
+    }
+
+    public boolean isFlushing() {
+        return frozen;
+    }
+
+    private void flush(long end, String reason) {
+        String stamp = new SimpleDateFormat("yyyyMMdd-HHmmss").format(new Date());
+        File file = new File(directory, "frames-" + stamp + "-" + reason + ".raw");
+        long start = Math.max(0, end - capacity);
+        try {
+            RawFrameWriter out = new RawFrameWriter(file, width, height);
+            try {
+                ByteBuffer view = frames.duplicate();
+                for (long i = start; i < end; i++) {
+                    int slot = (int) (i % capacity);
+                    int base = (int) ((long) slot * frameSize);
+                    view.limit(base + frameSize).position(base);
+                    out.write(view, timestamps[slot]);
+                }
+            } finally {
+                out.close();
+            }
+            System.out.println("Saved " + (end - start) + " frames to " + file + " (" + reason + ")");
+        } catch (IOException e) {
+            System.err.println("Could not save frames to " + file + ": " + e);
+        } finally {
+            frozen = false;
+        }
+    }
+}
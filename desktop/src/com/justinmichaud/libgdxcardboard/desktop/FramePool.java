@@ -0,0 +1,49 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Fixed set of preallocated frames shared by the pipeline stages. Frames are handed back
+ * here instead of being dropped, so steady-state capture does not allocate image buffers.
+ */
+public class FramePool implements FrameRing.Recycler<Frame> {
+
+    private final Frame[] free;
+    private int count;
+    private final int width, height;
+    private long misses;
+
+    public FramePool(int width, int height, int size) {
+        this.width = width;
+        this.height = height;
+        free = new Frame[size];
+        for (int i = 0; i < size; i++) {
+            free[count++] = create();
+        }
+    }
+
+    public synchronized Frame acquire() {
+        if (count == 0) {
+            misses++;
+            return create();
+        }
+        Frame frame = free[--count];
+        free[count] = null;
+        return frame;
+    }
+
+    @Override
+    public synchronized void recycle(Frame frame) {
+        if (count < free.length) free[count++] = frame;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private Frame create() {
+        Frame frame = new Frame();
+        frame.gray = new GrayU8(width, height);
+        return frame;
+    }
+}
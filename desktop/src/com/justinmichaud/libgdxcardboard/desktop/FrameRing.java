@@ -0,0 +1,130 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded single-producer/single-consumer ring between two pipeline stages.
+ * When the ring is full the producer evicts the oldest entry instead of waiting,
+ * so a slow consumer never stalls the stage feeding it, unless it uses {@link #put}.
+ * Capacity is rounded up to a power of two.
+ */
+public class FrameRing<T> {
+
+    private final AtomicReferenceArray<T> slots;
+    private final int mask;
+
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile Thread consumer;
+    private volatile Thread producer;
+
+    public FrameRing(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new AtomicReferenceArray<T>(size);
+        mask = size - 1;
+    }
+
+    /**
+     * Producer side. Returns the entry evicted to make room, or null if nothing was dropped,
+     * so the producer can recycle it.
+     */
+    public T offer(T item) {
+        T evicted = null;
+        long t = tail.get();
+        while (evicted == null && t - head.get() > mask) {
+            long h = head.get();
+            T oldest = slots.get((int) h & mask);
+            if (head.compareAndSet(h, h + 1)) {
+                evicted = oldest;
+                dropped.incrementAndGet();
+            }
+        }
+        slots.set((int) t & mask, item);
+        tail.set(t + 1);
+
+        Thread waiting = consumer;
+        if (waiting != null) LockSupport.unpark(waiting);
+        return evicted;
+    }
+
+    /** Producer side. Waits for room instead of evicting, for stages that must see every entry. */
+    public void put(T item) throws InterruptedException {
+        while (tail.get() - head.get() > mask) {
+            producer = Thread.currentThread();
+            if (tail.get() - head.get() > mask) LockSupport.park(this);
+            producer = null;
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        long t = tail.get();
+        slots.set((int) t & mask, item);
+        tail.set(t + 1);
+
+        Thread waiting = consumer;
+        if (waiting != null) LockSupport.unpark(waiting);
+    }
+
+    /** Consumer side. Returns the oldest entry, or null if the ring is empty. */
+    public T poll() {
+        while (true) {
+            long h = head.get();
+            if (h == tail.get()) return null;
+            T item = slots.get((int) h & mask);
+            if (head.compareAndSet(h, h + 1)) {
+                slots.compareAndSet((int) h & mask, item, null);
+                Thread waiting = producer;
+                if (waiting != null) LockSupport.unpark(waiting);
+                return item;
+            }
+        }
+    }
+
+    /**
+     * Consumer side. Blocks until an entry is available. Returns the freshest entry;
+     * anything older is handed to the recycler and counted as dropped.
+     */
+    public T takeLatest(Recycler<T> recycler) throws InterruptedException {
+        T latest = take();
+        T next;
+        while ((next = poll()) != null) {
+            dropped.incrementAndGet();
+            if (recycler != null) recycler.recycle(latest);
+            latest = next;
+        }
+        return latest;
+    }
+
+    public T take() throws InterruptedException {
+        T item;
+        while ((item = poll()) == null) {
+            consumer = Thread.currentThread();
+            if (isEmpty()) LockSupport.park(this);
+            consumer = null;
+            if (Thread.interrupted()) throw new InterruptedException();
+        }
+        return item;
+    }
+
+    public boolean isEmpty() {
+        return head.get() == tail.get();
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public interface Recycler<T> {
+        void recycle(T item);
+    }
+}
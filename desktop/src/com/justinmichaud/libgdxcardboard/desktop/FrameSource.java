@@ -0,0 +1,107 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.File;
+import java.io.IOException;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Where the capture stage gets its frames from: the live webcam, or a recording replayed
+ * either as fast as possible or paced to its original timing.
+ */
+public abstract class FrameSource {
+
+    public enum Pacing {
+        FAST,
+        REAL_TIME
+    }
+
+    private final Pacing pacing;
+    private long firstRecordedNanos = -1;
+    private long firstPlayedNanos;
+
+    private long recordedNanos = -1;
+    private long loopOffsetNanos = 0;
+    private long lastIntervalNanos = 0;
+    private boolean looped = false;
+
+    protected FrameSource(Pacing pacing) {
+        this.pacing = pacing;
+    }
+
+    public abstract int getWidth();
+
+    public abstract int getHeight();
+
+    /** Fills output with the next frame. Returns false once the source is exhausted. */
+    public abstract boolean read(GrayU8 output) throws IOException;
+
+    public Pacing getPacing() {
+        return pacing;
+    }
+
+    /**
+     * When the frame last read was recorded, on the recording's clock, or -1 for live sources.
+     * Keeps increasing when a looping source starts over.
+     */
+    public long getRecordedNanos() {
+        return recordedNanos;
+    }
+
+    public void close() throws IOException {
+    }
+
+    /** Sleeps until a frame recorded at recordedNanos is due, when pacing in real time. */
+    protected void pace(long recordedNanos) {
+        if (looped) {
+            loopOffsetNanos = this.recordedNanos + lastIntervalNanos - recordedNanos;
+            looped = false;
+        }
+        else if (this.recordedNanos >= 0) {
+            lastIntervalNanos = recordedNanos + loopOffsetNanos - this.recordedNanos;
+        }
+        this.recordedNanos = recordedNanos + loopOffsetNanos;
+        if (pacing != Pacing.REAL_TIME) return;
+
+        long now = System.nanoTime();
+        if (firstRecordedNanos < 0) {
+            firstRecordedNanos = recordedNanos;
+            firstPlayedNanos = now;
+            return;
+        }
+
+        long due = firstPlayedNanos + (recordedNanos - firstRecordedNanos);
+        while (now < due) {
+            try {
+                Thread.sleep((due - now) / 1000000, (int) ((due - now) % 1000000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            now = System.nanoTime();
+        }
+    }
+
+    /** Restarts pacing, for sources that loop back to their first frame. */
+    protected void resetPacing() {
+        firstRecordedNanos = -1;
+        looped = recordedNanos >= 0;
+    }
+
+    /**
+     * Opens the source named by {@code tracker.source}: {@code webcam}, {@code images:<dir>}
+     * or {@code raw:<file>}.
+     */
+    public static FrameSource open(TrackerConfig config) throws IOException {
+        String source = config.source;
+        if (source.startsWith("images:")) {
+            return new ImageSequenceFrameSource(new File(source.substring("images:".length())),
+                    config.sourcePacing, config.sourceFps, config.sourceLoop);
+        }
+        if (source.startsWith("raw:")) {
+            return new RawFrameFileSource(new File(source.substring("raw:".length())),
+                    config.sourcePacing, config.sourceLoop);
+        }
+        return new WebcamFrameSource(config.captureWidth, config.captureHeight);
+    }
+}
@@ -0,0 +1,24 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import boofcv.abst.fiducial.FiducialDetector;
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+
+public class FullFrameMarkerSearch extends MarkerSearch {
+
+    private final FiducialDetector<GrayU8> detector;
+    private final MarkerProjector projector;
+
+    public FullFrameMarkerSearch(IntrinsicParameters intrinsic) {
+        detector = createDetector(intrinsic);
+        projector = new MarkerProjector(intrinsic);
+    }
+
+    @Override
+    public void search(GrayU8 input, Markers found) {
+        found.reset();
+        detector.detect(input);
+        projector.addAll(detector, found);
+        record(SearchMode.FULL, found.size > 0);
+    }
+}
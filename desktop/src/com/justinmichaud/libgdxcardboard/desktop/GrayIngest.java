@@ -0,0 +1,43 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.github.sarxos.webcam.Webcam;
+
+import java.nio.ByteBuffer;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Reads raw RGB bytes from the webcam into a reused buffer and averages them straight into a
+ * gray image, skipping the BufferedImage that Webcam.getImage() would build for every frame.
+ */
+public class GrayIngest {
+
+    private final Webcam camera;
+    private final byte[] rgb;
+    private final ByteBuffer rgbBuffer;
+
+    public GrayIngest(Webcam camera, int width, int height) {
+        this.camera = camera;
+        rgb = new byte[width * height * 3];
+        rgbBuffer = ByteBuffer.wrap(rgb);
+    }
+
+    public void read(GrayU8 output) {
+        rgbBuffer.clear();
+        camera.getImageBytes(rgbBuffer);
+        rgbToGray(rgb, output);
+    }
+
+    public static void rgbToGray(byte[] rgb, GrayU8 output) {
+        int src = 0;
+        for (int y = 0; y < output.height; y++) {
+            int dst = output.startIndex + y * output.stride;
+            int end = dst + output.width;
+            while (dst < end) {
+                int sum = (rgb[src] & 0xFF) + (rgb[src + 1] & 0xFF) + (rgb[src + 2] & 0xFF);
+                output.data[dst++] = (byte) (sum / 3);
+                src += 3;
+            }
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Vector3;
+
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Turns detected markers or a tracked quad into the head position published to clients:
+ * x and y in [-2.5, 2.5] from the centre of the frame, z from the apparent marker size.
+ */
+public final class HeadEstimator {
+
+    private static final RateLimitedLog unknownIds = new RateLimitedLog(5000);
+
+    private HeadEstimator() {
+    }
+
+    public static boolean isHeadMarker(long id) {
+        return id == 284 || id == 643;
+    }
+
+    /**
+     * Averages the head markers into location and out. Marker rectangles are added to overlay
+     * when it is not null. Returns false if no head marker was found.
+     */
+    public static boolean fromMarkers(Markers markers, int width, int height,
+                                      Quadrilateral_F64 location, Frame overlay, Vector3 out) {
+        float xAvg = 0, yAvg = 0, zAvg = 0;
+        int samples = 0;
+
+        location.a.set(0,0);
+        location.b.set(0,0);
+        location.c.set(0,0);
+        location.d.set(0,0);
+
+        for (int i = 0; i < markers.size; i++) {
+            if (!isHeadMarker(markers.id[i])) {
+                unknownIds.log("Skipping unknown id ", markers.id[i]);
+                continue;
+            }
+
+            double w = markers.width[i];
+            double h = markers.height[i];
+            int tlx = (int) (markers.centreX[i] - w / 2.0);
+            int tly = (int) (markers.centreY[i] - h / 2.0);
+
+            if (overlay != null) overlay.addMarker(tlx, tly, (int) w, (int) h);
+
+            location.a.x+=tlx;
+            location.a.y+=tly;
+            location.b.x+=tlx+w;
+            location.b.y+=tly;
+            location.c.x+=tlx+w;
+            location.c.y+=tly+w;
+            location.d.x+=tlx;
+            location.d.y+=tly+w;
+
+            xAvg += (float) markers.centreX[i];
+            yAvg += (float) markers.centreY[i];
+            zAvg += (float) w;
+            samples += 1;
+        }
+
+        if (samples == 0) return false;
+
+        location.a.x /= samples;
+        location.a.y /= samples;
+        location.b.x /= samples;
+        location.b.y /= samples;
+        location.c.x /= samples;
+        location.c.y /= samples;
+        location.d.x /= samples;
+        location.d.y /= samples;
+
+        normalize(xAvg / samples, yAvg / samples, zAvg / samples, width, height, out);
+        return true;
+    }
+
+    public static void fromQuad(Quadrilateral_F64 location, int width, int height, Vector3 out) {
+        float xAvg = 0, yAvg = 0;
+        xAvg += location.a.x;
+        xAvg += location.b.x;
+        xAvg += location.c.x;
+        xAvg += location.d.x;
+        yAvg += location.a.y;
+        yAvg += location.b.y;
+        yAvg += location.c.y;
+        yAvg += location.d.y;
+        normalize(xAvg / 4, yAvg / 4, (float) (location.c.x - location.a.x), width, height, out);
+    }
+
+    public static void normalize(float x, float y, float size, int width, int height, Vector3 out) {
+        out.x = (x / width - 0.5f) * 5;
+        out.y = -(y / height - 0.5f) * 5;
+        out.z = (size/(width/6f)) * 5;
+    }
+
+    public static boolean isFinite(Quadrilateral_F64 location) {
+        return !Double.isNaN(location.a.x) &&
+                !Double.isNaN(location.a.y) &&
+                !Double.isNaN(location.b.x) &&
+                !Double.isNaN(location.b.y) &&
+                !Double.isNaN(location.c.x) &&
+                !Double.isNaN(location.c.y) &&
+                !Double.isNaN(location.d.x) &&
+                !Double.isNaN(location.d.y);
+    }
+
+    public static void clamp(Vector3 measured) {
+        measured.x = MathUtils.clamp(measured.x, -2.5f, 2.5f);
+        measured.y = MathUtils.clamp(measured.y, -2.5f, 2.5f);
+        measured.z = MathUtils.clamp(measured.z, 2f, 10f)-10;
+    }
+
+    public static void smooth(Vector3 position, Vector3 measured) {
+        position.x = 0.2f * position.x + measured.x * 0.8f;
+        position.y = 0.2f * position.y + measured.y * 0.8f;
+        position.z = 0.2f * position.z + measured.z * 0.8f;
+    }
+}
@@ -0,0 +1,87 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Arrays;
+
+import boofcv.io.image.ConvertBufferedImage;
+import boofcv.io.image.UtilImageIO;
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Replays the images in a directory, in file name order, at a fixed frame rate.
+ */
+public class ImageSequenceFrameSource extends FrameSource {
+
+    private final File[] files;
+    private final long frameNanos;
+    private final boolean loop;
+    private final int width, height;
+
+    private int next = 0;
+    private long recordedNanos = 0;
+
+    public ImageSequenceFrameSource(File directory, Pacing pacing, double fps, boolean loop)
+            throws IOException {
+        super(pacing);
+        this.loop = loop;
+        frameNanos = (long) (1e9 / fps);
+
+        File[] listed = directory.listFiles();
+        if (listed == null) throw new FileNotFoundException(directory.getPath());
+        Arrays.sort(listed);
+        int count = 0;
+        for (File file : listed) {
+            if (isImage(file)) listed[count++] = file;
+        }
+        if (count == 0) throw new IOException("No images in " + directory);
+        files = Arrays.copyOf(listed, count);
+
+        BufferedImage first = load(files[0]);
+        width = first.getWidth();
+        height = first.getHeight();
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean read(GrayU8 output) throws IOException {
+        if (next == files.length) {
+            if (!loop) return false;
+            next = 0;
+            resetPacing();
+        }
+
+        BufferedImage image = load(files[next++]);
+        if (image.getWidth() != width || image.getHeight() != height) {
+            throw new IOException("Frame size changed in " + files[next - 1]);
+        }
+        ConvertBufferedImage.convertFrom(image, output);
+
+        pace(recordedNanos);
+        recordedNanos += frameNanos;
+        return true;
+    }
+
+    private static BufferedImage load(File file) throws IOException {
+        BufferedImage image = UtilImageIO.loadImage(file.getPath());
+        if (image == null) throw new IOException("Unreadable image " + file);
+        return image;
+    }
+
+    private static boolean isImage(File file) {
+        String name = file.getName().toLowerCase();
+        return file.isFile() && (name.endsWith(".png") || name.endsWith(".jpg") ||
+                name.endsWith(".jpeg") || name.endsWith(".bmp") || name.endsWith(".pgm"));
+    }
+}
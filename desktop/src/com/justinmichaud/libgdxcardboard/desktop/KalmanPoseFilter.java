@@ -0,0 +1,83 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * Constant-velocity Kalman filter, run independently on each axis with a position and velocity
+ * state. Unmodelled acceleration is white noise with the given spectral density, so the
+ * process noise grows with the time between captures; the measurement noise is the variance of
+ * one position measurement. A low ratio of the two gives a steady pose at rest, and the
+ * velocity state lets it follow fast moves without the lag of a fixed blend.
+ */
+public class KalmanPoseFilter extends PoseFilter {
+
+    private final double processNoise;
+    private final double measurementNoise;
+
+    private final Axis[] axes = { new Axis(), new Axis(), new Axis() };
+    private long lastNanos = 0;
+    private boolean initialized = false;
+
+    public KalmanPoseFilter(double processNoise, double measurementNoise) {
+        this.processNoise = processNoise;
+        this.measurementNoise = measurementNoise;
+    }
+
+    @Override
+    public void filter(long captureNanos, Vector3 measured, boolean visible, long leadNanos, Vector3 out) {
+        if (!visible) {
+            if (initialized) out.set((float) axes[0].p, (float) axes[1].p, (float) axes[2].p);
+            return;
+        }
+
+        if (!initialized || captureNanos - lastNanos > MAX_GAP_NANOS) {
+            axes[0].reset(measured.x);
+            axes[1].reset(measured.y);
+            axes[2].reset(measured.z);
+            initialized = true;
+        }
+        else {
+            double dt = Math.max(0, captureNanos - lastNanos) / 1e9;
+            axes[0].update(dt, measured.x);
+            axes[1].update(dt, measured.y);
+            axes[2].update(dt, measured.z);
+        }
+        lastNanos = captureNanos;
+
+        double lead = leadNanos / 1e9;
+        out.set((float) (axes[0].p + axes[0].v * lead),
+                (float) (axes[1].p + axes[1].v * lead),
+                (float) (axes[2].p + axes[2].v * lead));
+    }
+
+    private class Axis {
+        double p, v;
+        double ppp, ppv, pvv;
+
+        void reset(double measurement) {
+            p = measurement;
+            v = 0;
+            ppp = measurementNoise;
+            ppv = 0;
+            pvv = 1;
+        }
+
+        void update(double dt, double measurement) {
+            p += v * dt;
+            double q = processNoise;
+            double newPpp = ppp + 2 * dt * ppv + dt * dt * pvv + q * dt * dt * dt / 3;
+            double newPpv = ppv + dt * pvv + q * dt * dt / 2;
+            double newPvv = pvv + q * dt;
+
+            double innovation = measurement - p;
+            double s = newPpp + measurementNoise;
+            double kp = newPpp / s, kv = newPpv / s;
+            p += kp * innovation;
+            v += kv * innovation;
+
+            ppp = (1 - kp) * newPpp;
+            ppv = (1 - kp) * newPpv;
+            pvv = newPvv - kv * newPpv;
+        }
+    }
+}
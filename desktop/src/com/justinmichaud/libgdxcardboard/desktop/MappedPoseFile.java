@@ -0,0 +1,194 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Memory-mapped pose file shared between the tracker and local readers. Layout, all offsets in
+ * bytes:
+ *
+ * <pre>
+ *   0  int magic, int layout version, int history capacity, int record size
+ *  16  long latest sequence
+ *  64  latest record
+ * 128  history ring of capacity records, indexed by sequence % capacity
+ * </pre>
+ *
+ * Each 64 byte record is its own seqlock: a version word that is odd while the record is being
+ * written, then sequence, capture nanos, publish nanos, flags, x, y, z. Fields are aligned plain
+ * accesses through the mapped buffer, and the seqlock steps are ordered by full fences:
+ * {@code VarHandle.fullFence()} where the runtime has it, else {@code Unsafe.fullFence()} on
+ * Java 8. Both keep the JIT from moving loads and stores across them and emit a hardware
+ * fence, so the ordering holds for the other processes mapping the file, without syscalls.
+ * Values are in native byte order; the file is only meant to be shared on one host.
+ *
+ * <p>A reader that keeps finding a record mid-write gives up after a bounded number of
+ * attempts rather than spinning on a writer that died between its two version bumps.
+ */
+public class MappedPoseFile {
+
+    static final int MAGIC = 0x48545053; // "HTPS"
+    static final int LAYOUT_VERSION = 1;
+    static final int RECORD_SIZE = 64;
+
+    static final int LATEST_SEQUENCE = 16;
+    static final int LATEST_RECORD = 64;
+    static final int HISTORY = 128;
+
+    private static final int VERSION = 0, SEQUENCE = 8, CAPTURE = 16, PUBLISH = 24, FLAGS = 32,
+            X = 36, Y = 40, Z = 44;
+
+    /** Attempts at a consistent copy before a reader gives up on a record. */
+    static final int MAX_READ_ATTEMPTS = 1000;
+
+    private static final MethodHandle FULL_FENCE = findFullFence();
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final int capacity;
+
+    private MappedPoseFile(RandomAccessFile file, MappedByteBuffer buffer, int capacity) {
+        this.file = file;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        buffer.order(ByteOrder.nativeOrder());
+    }
+
+    public static MappedPoseFile create(File path, int capacity) throws IOException {
+        long size = HISTORY + (long) capacity * RECORD_SIZE;
+        if (capacity <= 0 || size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Unsupported pose history capacity " + capacity);
+        }
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        file.setLength(size);
+        MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        MappedPoseFile mapped = new MappedPoseFile(file, buffer, capacity);
+        for (int offset = 0; offset < size; offset += 8) {
+            buffer.putLong(offset, 0);
+        }
+        buffer.putInt(4, LAYOUT_VERSION);
+        buffer.putInt(8, capacity);
+        buffer.putInt(12, RECORD_SIZE);
+        fence();
+        buffer.putInt(0, MAGIC);
+        fence();
+        return mapped;
+    }
+
+    public static MappedPoseFile open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        FileChannel channel = file.getChannel();
+        if (channel.size() < HISTORY) throw new IOException("Not a pose file: " + path);
+
+        MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HISTORY);
+        header.order(ByteOrder.nativeOrder());
+        if (header.getInt(0) != MAGIC || header.getInt(4) != LAYOUT_VERSION ||
+                header.getInt(12) != RECORD_SIZE) {
+            throw new IOException("Not a pose file or unsupported layout: " + path);
+        }
+        int capacity = header.getInt(8);
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                HISTORY + (long) capacity * RECORD_SIZE);
+        return new MappedPoseFile(file, buffer, capacity);
+    }
+
+    /** Keeps loads and stores on either side of the call on that side. */
+    private static void fence() {
+        try {
+            FULL_FENCE.invokeExact();
+        } catch (Throwable e) {
+            throw new IllegalStateException("Memory fence failed", e);
+        }
+    }
+
+    private static MethodHandle findFullFence() {
+        MethodType type = MethodType.methodType(void.class);
+        try {
+            return MethodHandles.publicLookup().findStatic(
+                    Class.forName("java.lang.invoke.VarHandle"), "fullFence", type);
+        } catch (ReflectiveOperationException e) {
+            // Before Java 9
+        }
+        try {
+            Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+            Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+            theUnsafe.setAccessible(true);
+            return MethodHandles.lookup().findVirtual(unsafeClass, "fullFence", type)
+                    .bindTo(theUnsafe.get(null));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("No memory fence available for the shared pose file", e);
+        }
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    long latestSequence() {
+        long sequence = buffer.getLong(LATEST_SEQUENCE);
+        fence();
+        return sequence;
+    }
+
+    int historyRecord(long sequence) {
+        return HISTORY + (int) (sequence % capacity) * RECORD_SIZE;
+    }
+
+    void write(int record, long sequence, long captureNanos, long publishNanos, boolean visible,
+               float x, float y, float z) {
+        long version = buffer.getLong(record + VERSION);
+        buffer.putLong(record + VERSION, version + 1);
+        fence();
+        buffer.putLong(record + SEQUENCE, sequence);
+        buffer.putLong(record + CAPTURE, captureNanos);
+        buffer.putLong(record + PUBLISH, publishNanos);
+        buffer.putInt(record + FLAGS, visible ? 1 : 0);
+        buffer.putFloat(record + X, x);
+        buffer.putFloat(record + Y, y);
+        buffer.putFloat(record + Z, z);
+        fence();
+        buffer.putLong(record + VERSION, version + 2);
+    }
+
+    void publishSequence(long sequence) {
+        fence();
+        buffer.putLong(LATEST_SEQUENCE, sequence);
+        fence();
+    }
+
+    /**
+     * Copies a record out under its seqlock. Returns false if it was never written, or if no
+     * consistent copy was seen within {@link #MAX_READ_ATTEMPTS}.
+     */
+    boolean read(int record, PoseSample target) {
+        for (int attempt = 0; attempt < MAX_READ_ATTEMPTS; attempt++) {
+            long before = buffer.getLong(record + VERSION);
+            fence();
+            if ((before & 1) == 0) {
+                target.sequence = buffer.getLong(record + SEQUENCE);
+                target.captureNanos = buffer.getLong(record + CAPTURE);
+                target.publishNanos = buffer.getLong(record + PUBLISH);
+                target.visible = buffer.getInt(record + FLAGS) != 0;
+                target.x = buffer.getFloat(record + X);
+                target.y = buffer.getFloat(record + Y);
+                target.z = buffer.getFloat(record + Z);
+                fence();
+                if (buffer.getLong(record + VERSION) == before) return before != 0;
+            }
+            Thread.yield();
+        }
+        return false;
+    }
+
+    public void close() throws IOException {
+        file.close();
+    }
+}
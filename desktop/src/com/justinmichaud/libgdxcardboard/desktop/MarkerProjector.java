@@ -0,0 +1,60 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import boofcv.abst.fiducial.FiducialDetector;
+import boofcv.alg.geo.WorldToCameraToPixel;
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.point.Point2D_F64;
+import georegression.struct.point.Point3D_F64;
+import georegression.struct.se.Se3_F64;
+
+/**
+ * Projects a detected fiducial's pose back into full-frame pixels. Detectors that ran on a
+ * crop were given intrinsics with a shifted principal point, so their poses are already in the
+ * full camera frame and project the same way as a full-frame detection.
+ */
+public class MarkerProjector {
+
+    private final IntrinsicParameters intrinsic;
+
+    private final Se3_F64 targetToSensor = new Se3_F64();
+    private final WorldToCameraToPixel worldToPixel = new WorldToCameraToPixel();
+    private final Point3D_F64 markerCorner = new Point3D_F64();
+    private final Point3D_F64 markerOrigin = new Point3D_F64();
+    private final Point2D_F64 width = new Point2D_F64();
+    private final Point2D_F64 centre = new Point2D_F64();
+
+    public MarkerProjector(IntrinsicParameters intrinsic) {
+        this.intrinsic = intrinsic;
+    }
+
+    public void addAll(FiducialDetector<GrayU8> detector, Markers found) {
+        for (int i = 0; i < detector.totalFound(); i++) {
+            detector.getFiducialToCamera(i, targetToSensor);
+
+            worldToPixel.configure(intrinsic, targetToSensor);
+            markerCorner.set(detector.getWidth(i), detector.getWidth(i), 0);
+            markerOrigin.set(0, 0, 0);
+            worldToPixel.transform(markerCorner, width);
+            worldToPixel.transform(markerOrigin, centre);
+
+            found.add(detector.getId(i), centre.getX(), centre.getY(),
+                    Math.abs(width.getX() - centre.getX()),
+                    Math.abs(width.getY() - centre.getY()));
+        }
+    }
+
+    public IntrinsicParameters getIntrinsic() {
+        return intrinsic;
+    }
+
+    /** Intrinsics for a detector that only sees the crop starting at (x0, y0). */
+    public static void crop(IntrinsicParameters full, int x0, int y0, int width, int height,
+                            IntrinsicParameters output) {
+        output.set(full);
+        output.setCx(full.getCx() - x0);
+        output.setCy(full.getCy() - y0);
+        output.setWidth(width);
+        output.setHeight(height);
+    }
+}
@@ -0,0 +1,81 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import boofcv.abst.fiducial.FiducialDetector;
+import boofcv.factory.fiducial.ConfigFiducialBinary;
+import boofcv.factory.fiducial.FactoryFiducial;
+import boofcv.factory.filter.binary.ConfigThreshold;
+import boofcv.factory.filter.binary.ThresholdType;
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Strategy for finding the head fiducials in a frame. Implementations report hit and miss
+ * counts per search mode they actually ran.
+ */
+public abstract class MarkerSearch {
+
+    /** Radius of the local threshold window; pixels closer than this to a crop edge binarize differently. */
+    static final int THRESHOLD_RADIUS = 10;
+
+    private final AtomicLongArray hits = new AtomicLongArray(SearchMode.values().length);
+    private final AtomicLongArray misses = new AtomicLongArray(SearchMode.values().length);
+
+    public abstract void search(GrayU8 input, Markers found);
+
+    /** Called after each frame with the head quad the processor settled on. */
+    public void update(Quadrilateral_F64 head, boolean visible) {
+    }
+
+    /** Called after each frame with the time the vision thread spent on it. */
+    public void frameProcessed(long nanos) {
+    }
+
+    /** Appends lines about the search's own state to the metrics page. */
+    public void report(StringBuilder out) {
+    }
+
+    protected void record(SearchMode mode, boolean hit) {
+        if (hit) hits.incrementAndGet(mode.ordinal());
+        else misses.incrementAndGet(mode.ordinal());
+    }
+
+    public long getHits(SearchMode mode) {
+        return hits.get(mode.ordinal());
+    }
+
+    public long getMisses(SearchMode mode) {
+        return misses.get(mode.ordinal());
+    }
+
+    public static FiducialDetector<GrayU8> createDetector(IntrinsicParameters intrinsic) {
+        FiducialDetector<GrayU8> detector = FactoryFiducial.squareBinary(
+                new ConfigFiducialBinary(1),
+                ConfigThreshold.local(ThresholdType.LOCAL_SQUARE, THRESHOLD_RADIUS),
+                //ConfigThreshold.fixed(100),
+                GrayU8.class);
+        detector.setIntrinsic(intrinsic);
+        return detector;
+    }
+
+    public static MarkerSearch create(TrackerConfig config, IntrinsicParameters intrinsic) {
+        switch (config.searchMode) {
+            case ROI:
+                return new RoiMarkerSearch(intrinsic, config.roiMaxMisses, config.roiMargin);
+            case PYRAMID:
+                return new PyramidMarkerSearch(intrinsic, config.pyramidLevels, config.pyramidMaxMisses);
+            case TILED:
+                return new TiledMarkerSearch(intrinsic, config.tileColumns, config.tileRows,
+                        config.tileOverlap, config.tileThreads);
+            case ADAPTIVE:
+                return new AdaptiveMarkerSearch(intrinsic, new ResolutionController(
+                        intrinsic.getWidth(), intrinsic.getHeight(), config.resolutionLadder,
+                        config.resolutionTargetRate > 0 ? config.resolutionTargetRate : config.sourceFps,
+                        config.resolutionMinMarker, config.resolutionHoldFrames));
+            default:
+                return new FullFrameMarkerSearch(intrinsic);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+/**
+ * Fiducials found in one frame, in full-frame pixel coordinates. Preallocated and reused
+ * between frames.
+ */
+public class Markers {
+
+    public static final int CAPACITY = 32;
+
+    public int size;
+    public final long[] id = new long[CAPACITY];
+    public final double[] centreX = new double[CAPACITY];
+    public final double[] centreY = new double[CAPACITY];
+    public final double[] width = new double[CAPACITY];
+    public final double[] height = new double[CAPACITY];
+
+    public void reset() {
+        size = 0;
+    }
+
+    public void add(long markerId, double x, double y, double w, double h) {
+        if (size == CAPACITY) return;
+        id[size] = markerId;
+        centreX[size] = x;
+        centreY[size] = y;
+        width[size] = w;
+        height[size] = h;
+        size++;
+    }
+
+    /**
+     * Copies marker i of other unless a marker with the same id already sits within
+     * tolerance pixels of it.
+     */
+    public boolean addUnique(Markers other, int i, double tolerance) {
+        if (indexOf(other, i, tolerance) >= 0) return false;
+        add(other.id[i], other.centreX[i], other.centreY[i], other.width[i], other.height[i]);
+        return true;
+    }
+
+    /** Index of a marker with the same id as marker i of other within tolerance pixels, or -1. */
+    public int indexOf(Markers other, int i, double tolerance) {
+        for (int j = 0; j < size; j++) {
+            if (id[j] == other.id[i] &&
+                    Math.abs(centreX[j] - other.centreX[i]) <= tolerance &&
+                    Math.abs(centreY[j] - other.centreY[i]) <= tolerance) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    /** Overwrites marker j with marker i of other. */
+    public void set(int j, Markers other, int i) {
+        id[j] = other.id[i];
+        centreX[j] = other.centreX[i];
+        centreY[j] = other.centreY[i];
+        width[j] = other.width[i];
+        height[j] = other.height[i];
+    }
+}
@@ -0,0 +1,106 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+
+/**
+ * Plain-text metrics page for the tracker, served on localhost at {@code /metrics}. Requesting
+ * {@code /capture} saves the frames in the capture ring.
+ */
+public class MetricsServer implements HttpHandler {
+
+    private final BoofProcessor processor;
+    private final HttpServer server;
+
+    public MetricsServer(BoofProcessor processor, int port) throws IOException {
+        this.processor = processor;
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/metrics", this);
+        server.createContext("/capture", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                MetricsServer.this.processor.triggerCapture("operator");
+                respond(exchange, "capture requested\n");
+            }
+        });
+        server.start();
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        respond(exchange, render());
+    }
+
+    private static void respond(HttpExchange exchange, String text) throws IOException {
+        byte[] body = text.getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        OutputStream out = exchange.getResponseBody();
+        out.write(body);
+        out.close();
+    }
+
+    public String render() {
+        StringBuilder out = new StringBuilder();
+        processor.getMetrics().report(out);
+
+        out.append("queue capture depth=").append(processor.getCaptureQueueDepth())
+                .append(" dropped=").append(processor.getCaptureDrops()).append('\n');
+        out.append("queue display depth=").append(processor.getDisplayQueueDepth())
+                .append(" dropped=").append(processor.getDisplayDrops()).append('\n');
+        out.append("frame_pool misses=").append(processor.getFramePoolMisses()).append('\n');
+
+        DetectionScheduler scheduler = processor.getDetectionScheduler();
+        if (scheduler != null) {
+            out.append("cadence detections=").append(scheduler.getDetections())
+                    .append(" tracked=").append(scheduler.getTrackedFrames())
+                    .append(" reinitialized=").append(scheduler.getReinitializations()).append('\n');
+        }
+
+        DetectionWorkers workers = processor.getDetectionWorkers();
+        if (workers != null) {
+            out.append("workers threads=").append(workers.getThreads())
+                    .append(" detected=").append(workers.getDetected())
+                    .append(" stale=").append(workers.getStale())
+                    .append(" dropped=").append(workers.getDropped())
+                    .append(" queued=").append(workers.getQueued())
+                    .append(" reordering=").append(workers.getReordering()).append('\n');
+        }
+
+        MotionGate gate = processor.getMotionGate();
+        if (gate != null) {
+            out.append("motion_gate checked=").append(gate.getCheckedFrames())
+                    .append(String.format(" last_change=%.2f\n", gate.getLastChange()));
+        }
+
+        OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+        if (os instanceof com.sun.management.OperatingSystemMXBean) {
+            double load = ((com.sun.management.OperatingSystemMXBean) os).getProcessCpuLoad();
+            if (load >= 0) out.append(String.format("cpu process=%.1f%%\n", 100 * load));
+        }
+
+        MarkerSearch search = processor.getMarkerSearch();
+        search.report(out);
+        for (SearchMode mode : SearchMode.values()) {
+            long hits = search.getHits(mode), misses = search.getMisses(mode);
+            if (hits + misses == 0) continue;
+            out.append("search ").append(mode.name().toLowerCase())
+                    .append(" hits=").append(hits)
+                    .append(" misses=").append(misses)
+                    .append(String.format(" hit_rate=%.3f\n", hits / (double) (hits + misses)));
+        }
+        return out.toString();
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,125 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Skips vision work on frames where nothing moved. Each frame is reduced to the mean brightness
+ * of a coarse grid of cells, sampled sparsely, over the last head quad plus a margin around it
+ * (the whole frame while the head is lost). If no cell changed by more than the threshold since
+ * the last frame that was actually processed, the frame is static and the previous pose can be
+ * reused. Comparing with the last processed frame rather than the previous one means slow drift
+ * still adds up to a change, and a frame is never skipped once the last processed one is older
+ * than the maximum skip time.
+ *
+ * <p>Checking a frame reads at most one pixel in sixteen, and usually far fewer, and it stops at
+ * the first cell that changed, so frames with real motion are not noticeably delayed.
+ */
+public class MotionGate {
+
+    private static final int SAMPLE_STEP = 4;
+
+    private final int cell;
+    private final double margin;
+    private final long maxSkipNanos;
+    private final int columns;
+    private final int rows;
+    private final int samples;
+    private final int maxSumDifference;
+
+    private final int[] reference;
+    private int left, top, right, bottom;
+    private boolean hasReference = false;
+    private long referenceNanos;
+
+    private final AtomicLong checkedFrames = new AtomicLong();
+    private volatile int lastChange = 0;
+
+    public MotionGate(int width, int height, int cell, double threshold, double margin, long maxSkipNanos) {
+        this.cell = cell;
+        this.margin = margin;
+        this.maxSkipNanos = maxSkipNanos;
+        columns = width / cell;
+        rows = height / cell;
+        reference = new int[columns * rows];
+
+        samples = (cell / SAMPLE_STEP) * (cell / SAMPLE_STEP);
+        maxSumDifference = (int) (threshold * samples);
+    }
+
+    /** True if image, captured at captureNanos, can reuse the pose of the last processed frame. */
+    public boolean isStatic(GrayU8 image, long captureNanos) {
+        checkedFrames.incrementAndGet();
+        if (!hasReference || captureNanos - referenceNanos >= maxSkipNanos) return false;
+
+        int largest = 0;
+        for (int cy = top; cy < bottom; cy++) {
+            for (int cx = left; cx < right; cx++) {
+                int change = Math.abs(cellSum(image, cx, cy) - reference[cy * columns + cx]);
+                if (change > largest) largest = change;
+                if (largest > maxSumDifference) {
+                    lastChange = largest;
+                    return false;
+                }
+            }
+        }
+        lastChange = largest;
+        return true;
+    }
+
+    /**
+     * Records image as the last processed frame. The region watched from now on is quad grown by
+     * the margin on every side if the head is visible, or the whole frame if not.
+     */
+    public void processed(GrayU8 image, Quadrilateral_F64 quad, boolean visible, long captureNanos) {
+        if (visible && HeadEstimator.isFinite(quad)) {
+            double minX = Math.min(quad.a.x, quad.d.x), maxX = Math.max(quad.b.x, quad.c.x);
+            double minY = Math.min(quad.a.y, quad.b.y), maxY = Math.max(quad.c.y, quad.d.y);
+            double growX = (maxX - minX) * margin, growY = (maxY - minY) * margin;
+            left = clamp((int) Math.floor((minX - growX) / cell), columns);
+            right = clamp((int) Math.ceil((maxX + growX) / cell), columns);
+            top = clamp((int) Math.floor((minY - growY) / cell), rows);
+            bottom = clamp((int) Math.ceil((maxY + growY) / cell), rows);
+        } else {
+            left = top = 0;
+            right = columns;
+            bottom = rows;
+        }
+
+        for (int cy = top; cy < bottom; cy++) {
+            for (int cx = left; cx < right; cx++) {
+                reference[cy * columns + cx] = cellSum(image, cx, cy);
+            }
+        }
+        hasReference = true;
+        referenceNanos = captureNanos;
+    }
+
+    private static int clamp(int value, int limit) {
+        return Math.max(0, Math.min(limit, value));
+    }
+
+    private int cellSum(GrayU8 image, int cx, int cy) {
+        int sum = 0;
+        byte[] data = image.data;
+        int x0 = cx * cell + SAMPLE_STEP / 2, y0 = cy * cell + SAMPLE_STEP / 2;
+        for (int y = y0; y < (cy + 1) * cell; y += SAMPLE_STEP) {
+            int row = image.startIndex + y * image.stride;
+            for (int x = x0; x < (cx + 1) * cell; x += SAMPLE_STEP) {
+                sum += data[row + x] & 0xFF;
+            }
+        }
+        return sum;
+    }
+
+    public long getCheckedFrames() {
+        return checkedFrames.get();
+    }
+
+    /** Largest cell change seen in the last check, in grey levels. */
+    public double getLastChange() {
+        return lastChange / (double) samples;
+    }
+}
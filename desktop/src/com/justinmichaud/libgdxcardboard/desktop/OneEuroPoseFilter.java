@@ -0,0 +1,75 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * One Euro filter (Casiez, Roussel and Vogel, CHI 2012) on each axis: a low-pass filter whose
+ * cutoff rises with the filtered speed. At rest the cutoff sits at the minimum and jitter is
+ * smoothed away; during fast moves beta raises it so the output keeps up. Prediction uses the
+ * filtered derivative.
+ */
+public class OneEuroPoseFilter extends PoseFilter {
+
+    private final double minCutoff;
+    private final double beta;
+    private final double derivativeCutoff;
+
+    private final Axis[] axes = { new Axis(), new Axis(), new Axis() };
+    private long lastNanos = 0;
+    private boolean initialized = false;
+
+    public OneEuroPoseFilter(double minCutoff, double beta, double derivativeCutoff) {
+        this.minCutoff = minCutoff;
+        this.beta = beta;
+        this.derivativeCutoff = derivativeCutoff;
+    }
+
+    @Override
+    public void filter(long captureNanos, Vector3 measured, boolean visible, long leadNanos, Vector3 out) {
+        if (!visible) {
+            if (initialized) out.set((float) axes[0].x, (float) axes[1].x, (float) axes[2].x);
+            return;
+        }
+
+        long gap = captureNanos - lastNanos;
+        if (!initialized || gap > MAX_GAP_NANOS) {
+            axes[0].reset(measured.x);
+            axes[1].reset(measured.y);
+            axes[2].reset(measured.z);
+            initialized = true;
+        }
+        else if (gap > 0) {
+            double dt = gap / 1e9;
+            axes[0].update(dt, measured.x);
+            axes[1].update(dt, measured.y);
+            axes[2].update(dt, measured.z);
+        }
+        lastNanos = captureNanos;
+
+        double lead = leadNanos / 1e9;
+        out.set((float) (axes[0].x + axes[0].dx * lead),
+                (float) (axes[1].x + axes[1].dx * lead),
+                (float) (axes[2].x + axes[2].dx * lead));
+    }
+
+    private static double alpha(double dt, double cutoff) {
+        double tau = 1 / (2 * Math.PI * cutoff);
+        return 1 / (1 + tau / dt);
+    }
+
+    private class Axis {
+        double x, dx;
+
+        void reset(double measurement) {
+            x = measurement;
+            dx = 0;
+        }
+
+        void update(double dt, double measurement) {
+            double rawDx = (measurement - x) / dt;
+            dx += alpha(dt, derivativeCutoff) * (rawDx - dx);
+            double cutoff = minCutoff + beta * Math.abs(dx);
+            x += alpha(dt, cutoff) * (measurement - x);
+        }
+    }
+}
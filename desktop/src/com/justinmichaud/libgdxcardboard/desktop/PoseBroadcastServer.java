@@ -0,0 +1,416 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.badlogic.gdx.math.Vector3;
+import com.justinmichaud.libgdxcardboard.PoseCodec;
+import com.justinmichaud.libgdxcardboard.PoseFrame;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking pose server: one selector thread fans every new pose out to any number of
+ * clients. Each client only ever holds the latest pose; while a slow client is still draining
+ * an earlier frame, newer poses replace each other instead of queueing, so it never delays
+ * anyone else.
+ *
+ * <p>Binary clients can also ping for clock sync and ask for poses extrapolated to their display
+ * time; see {@link PoseCodec}. How far those predictions were off is measured against the
+ * poses that arrive later and reported in the metrics. Stream options let each client lower
+ * its own rate, skip poses inside a movement deadband, and ask for heartbeats instead.
+ */
+public class PoseBroadcastServer implements PoseServer {
+
+    private static final long NEGOTIATION_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(250);
+    private static final int TEXT_FRAME_SIZE = 128;
+    static final long EXTRAPOLATION_WINDOW_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+    static final long MAX_LEAD_NANOS = TimeUnit.MILLISECONDS.toNanos(200);
+    private static final int PREDICTIONS = 32;
+
+    private static final int PENDING = 0, TEXT = 1, BINARY = 2;
+
+    private final PosePublisher publisher;
+    private final TrackerMetrics metrics;
+    private final long minIntervalNanos;
+
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final List<Client> clients = new ArrayList<Client>();
+    private final Runnable wakeup = new Runnable() {
+        @Override
+        public void run() {
+            selector.wakeup();
+        }
+    };
+
+    private final PoseSample sample = new PoseSample();
+    private final Vector3 target = new Vector3();
+    private final ByteBuffer binaryFrame = ByteBuffer.allocate(PoseCodec.FRAME_SIZE);
+    private byte[] textFrame = new byte[0];
+    private long encodedSequence = -1;
+
+    private final PoseExtrapolator extrapolator =
+            new PoseExtrapolator(EXTRAPOLATION_WINDOW_NANOS, MAX_LEAD_NANOS);
+    private final Vector3 predicted = new Vector3();
+    private final PoseFrame predictedFrame = new PoseFrame();
+    private final Vector3 actual = new Vector3();
+    private final long[] predictionTimes = new long[PREDICTIONS];
+    private final float[] predictionPositions = new float[3 * PREDICTIONS];
+    private int predictionHead = 0, predictionCount = 0;
+    private long predictionSequence = -1;
+    private final long[] times = new long[3];
+    private final float[] options = new float[3];
+
+    private volatile boolean running = true;
+
+    public PoseBroadcastServer(PosePublisher publisher, TrackerMetrics metrics,
+                               InetSocketAddress address, long minIntervalNanos) throws IOException {
+        this.publisher = publisher;
+        this.metrics = metrics;
+        this.minIntervalNanos = minIntervalNanos;
+
+        selector = Selector.open();
+        server = ServerSocketChannel.open();
+        server.socket().setReuseAddress(true);
+        server.socket().bind(address);
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+
+        publisher.addListener(wakeup);
+    }
+
+    @Override
+    public int getPort() {
+        return server.socket().getLocalPort();
+    }
+
+    @Override
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @Override
+    public void run() {
+        long deadline = Long.MAX_VALUE;
+        try {
+            while (running) {
+                long now = System.nanoTime();
+                if (deadline == Long.MAX_VALUE) selector.select();
+                else if (deadline > now) selector.select(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - now) + 1));
+                else selector.selectNow();
+
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    if (!key.isValid()) continue;
+
+                    if (key.isAcceptable()) accept();
+                    else {
+                        Client client = (Client) key.attachment();
+                        if (key.isReadable()) read(client);
+                        if (key.isValid() && key.isWritable()) flush(client);
+                    }
+                }
+
+                deadline = broadcast();
+            }
+        } catch (IOException e) {
+            if (running) e.printStackTrace();
+        } finally {
+            shutdown();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void shutdown() {
+        publisher.removeListener(wakeup);
+        for (Client client : new ArrayList<Client>(clients)) {
+            disconnect(client);
+        }
+        try {
+            server.close();
+            selector.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /** Offers the latest pose to every client. Returns when the loop next needs to wake. */
+    private long broadcast() {
+        publisher.read(sample);
+        if (sample.sequence != encodedSequence) encode();
+
+        long now = System.nanoTime();
+        long deadline = Long.MAX_VALUE;
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            Client client = clients.get(i);
+            if (client.mode == PENDING) {
+                if (now - client.negotiateDeadline < 0) {
+                    deadline = Math.min(deadline, client.negotiateDeadline);
+                    continue;
+                }
+                client.mode = TEXT;
+            }
+            if (client.out.hasRemaining()) continue;
+
+            boolean fresh = sample.sequence > client.lastSequence;
+            long heartbeatDue = client.lastSentNanos + client.heartbeatNanos;
+            boolean heartbeat = client.heartbeatNanos > 0 && client.lastSentNanos != 0 && now - heartbeatDue >= 0;
+            if (!heartbeat && client.heartbeatNanos > 0 && client.lastSentNanos != 0) {
+                deadline = Math.min(deadline, heartbeatDue);
+            }
+            if (!fresh && !heartbeat) continue;
+
+            boolean stale = !fresh || client.isInsideDeadband(sample);
+            if (stale && !heartbeat) {
+                if (client.suppressedSequence != sample.sequence) {
+                    client.suppressedSequence = sample.sequence;
+                    if (metrics != null) metrics.poseSuppressed();
+                }
+                continue;
+            }
+
+            long due = client.lastSentNanos + Math.max(minIntervalNanos, client.minIntervalNanos);
+            if (!heartbeat && client.lastSentNanos != 0 && now - due < 0) {
+                deadline = Math.min(deadline, due);
+                continue;
+            }
+            if (stale && metrics != null) metrics.heartbeatSent();
+            send(client);
+        }
+        return deadline;
+    }
+
+    private void encode() {
+        binaryFrame.clear();
+        PoseCodec.encodePose(binaryFrame, sample.sequence, sample.captureNanos,
+                sample.visible, sample.x, sample.y, sample.z);
+
+        String text;
+        if (!sample.visible) text = "null";
+        else {
+            target.set(sample.x, sample.y, sample.z);
+            text = target.toString();
+        }
+        textFrame = (text + "\n").getBytes();
+        encodedSequence = sample.sequence;
+
+        extrapolator.add(sample.captureNanos, sample.visible, sample.x, sample.y, sample.z);
+        scorePredictions();
+    }
+
+    /** Compares earlier predictions with the measured poses once the history covers their time. */
+    private void scorePredictions() {
+        while (predictionCount > 0) {
+            int i = (predictionHead - predictionCount + PREDICTIONS) % PREDICTIONS;
+            if (!extrapolator.isEmpty() && predictionTimes[i] > extrapolator.getNewestTime()) return;
+
+            if (metrics != null && extrapolator.positionAt(predictionTimes[i], actual)) {
+                metrics.extrapolated(actual.dst(predictionPositions[3 * i],
+                        predictionPositions[3 * i + 1], predictionPositions[3 * i + 2]));
+            }
+            predictionCount--;
+        }
+    }
+
+    private void encodePredicted(Client client) {
+        long targetNanos = System.nanoTime() + client.leadNanos;
+        boolean visible = sample.visible && extrapolator.extrapolate(targetNanos, predicted);
+        if (!visible) predicted.set(sample.x, sample.y, sample.z);
+
+        predictedFrame.sequence = sample.sequence;
+        predictedFrame.captureNanos = targetNanos;
+        predictedFrame.visible = visible;
+        predictedFrame.predicted = true;
+        predictedFrame.x = predicted.x;
+        predictedFrame.y = predicted.y;
+        predictedFrame.z = predicted.z;
+        client.out.clear();
+        PoseCodec.encodePose(client.out, predictedFrame);
+
+        if (visible && sample.sequence != predictionSequence) {
+            int i = predictionHead;
+            predictionTimes[i] = targetNanos;
+            predictionPositions[3 * i] = predicted.x;
+            predictionPositions[3 * i + 1] = predicted.y;
+            predictionPositions[3 * i + 2] = predicted.z;
+            predictionHead = (predictionHead + 1) % PREDICTIONS;
+            predictionCount = Math.min(predictionCount + 1, PREDICTIONS);
+            predictionSequence = sample.sequence;
+        }
+    }
+
+    private void send(Client client) {
+        if (client.mode == BINARY && client.leadNanos > 0) encodePredicted(client);
+        else {
+            client.out.clear();
+            if (client.mode == BINARY) client.out.put(binaryFrame.array(), 0, binaryFrame.position());
+            else client.out.put(textFrame, 0, Math.min(textFrame.length, TEXT_FRAME_SIZE));
+        }
+        client.out.flip();
+
+        client.lastSequence = sample.sequence;
+        client.pendingPublishNanos = sample.publishNanos;
+        client.sentVisible = sample.visible;
+        client.sentX = sample.x;
+        client.sentY = sample.y;
+        client.sentZ = sample.z;
+        flush(client);
+    }
+
+    private void flush(Client client) {
+        try {
+            client.channel.write(client.out);
+        } catch (IOException e) {
+            disconnect(client);
+            return;
+        }
+
+        if (client.out.hasRemaining()) {
+            client.key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        } else {
+            client.key.interestOps(SelectionKey.OP_READ);
+            if (client.pendingPublishNanos != 0) {
+                client.lastSentNanos = System.nanoTime();
+                if (metrics != null) metrics.publishToWrite.record(client.lastSentNanos - client.pendingPublishNanos);
+                client.pendingPublishNanos = 0;
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel;
+        while ((channel = server.accept()) != null) {
+            channel.configureBlocking(false);
+            channel.socket().setTcpNoDelay(true);
+            Client client = new Client(channel);
+            client.key = channel.register(selector, SelectionKey.OP_READ, client);
+            clients.add(client);
+        }
+    }
+
+    private void read(Client client) {
+        int read;
+        try {
+            read = client.channel.read(client.in);
+        } catch (IOException e) {
+            disconnect(client);
+            return;
+        }
+        long receivedNanos = System.nanoTime();
+        if (read < 0) {
+            disconnect(client);
+            return;
+        }
+
+        ByteBuffer in = client.in;
+        in.flip();
+        if (client.mode == PENDING && in.hasRemaining()) {
+            client.mode = in.get() == PoseCodec.NEGOTIATE_BINARY ? BINARY : TEXT;
+        }
+        if (client.mode == BINARY) {
+            if (!readMessages(client, receivedNanos)) return;
+        } else {
+            in.position(in.limit());
+        }
+        in.compact();
+    }
+
+    /** Handles every complete message buffered from a binary client. Returns false if it was dropped. */
+    private boolean readMessages(Client client, long receivedNanos) {
+        ByteBuffer in = client.in;
+        while (in.remaining() >= PoseCodec.HEADER_SIZE) {
+            int type = PoseCodec.peekType(in);
+            int size = PoseCodec.messageSize(type);
+            if (size < 0) {
+                disconnect(client);
+                return false;
+            }
+            if (in.remaining() < size) break;
+
+            if (type == PoseCodec.TYPE_PING) {
+                PoseCodec.decodePing(in, times);
+                if (metrics != null && times[2] > 0) metrics.clockSync(times[1], times[2]);
+                pong(client, times[0], receivedNanos);
+            } else if (type == PoseCodec.TYPE_STREAM_OPTIONS) {
+                PoseCodec.decodeStreamOptions(in, options);
+                client.minIntervalNanos = options[0] > 0 ? (long) (1e9 / options[0]) : 0;
+                client.deadband = Math.max(0, options[1]);
+                client.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, (int) options[2]));
+            } else if (type == PoseCodec.TYPE_EXTRAPOLATE) {
+                client.leadNanos = Math.max(0, Math.min(MAX_LEAD_NANOS, PoseCodec.decodeExtrapolate(in)));
+            } else {
+                in.position(in.position() + size);
+            }
+        }
+        return true;
+    }
+
+    /** Queues a pong behind whatever is still unsent; if there is no room the client just pings again. */
+    private void pong(Client client, long clientSendNanos, long receivedNanos) {
+        ByteBuffer out = client.out;
+        if (out.remaining() > out.capacity() - PoseCodec.PONG_SIZE) return;
+
+        out.compact();
+        PoseCodec.encodePong(out, clientSendNanos, receivedNanos, System.nanoTime());
+        out.flip();
+        flush(client);
+    }
+
+    private void disconnect(Client client) {
+        clients.remove(client);
+        if (client.key != null) client.key.cancel();
+        try {
+            client.channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static class Client {
+        final SocketChannel channel;
+        SelectionKey key;
+        int mode = PENDING;
+        final long negotiateDeadline = System.nanoTime() + NEGOTIATION_TIMEOUT_NANOS;
+
+        final ByteBuffer out = ByteBuffer.allocate(TEXT_FRAME_SIZE);
+        final ByteBuffer in = ByteBuffer.allocate(64);
+        long lastSequence = 0;
+        long lastSentNanos = 0;
+        long pendingPublishNanos;
+        long leadNanos = 0;
+
+        long minIntervalNanos = 0;
+        float deadband = 0;
+        long heartbeatNanos = 0;
+        long suppressedSequence = -1;
+        boolean sentVisible;
+        float sentX, sentY, sentZ;
+
+        Client(SocketChannel channel) {
+            this.channel = channel;
+            out.limit(0);
+        }
+
+        boolean isInsideDeadband(PoseSample sample) {
+            if (deadband <= 0 || lastSentNanos == 0 || sample.visible != sentVisible) return false;
+            if (!sample.visible) return true;
+            float dx = sample.x - sentX, dy = sample.y - sentY, dz = sample.z - sentZ;
+            return dx * dx + dy * dy + dz * dz < deadband * deadband;
+        }
+    }
+}
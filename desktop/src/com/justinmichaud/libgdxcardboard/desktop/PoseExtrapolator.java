@@ -0,0 +1,122 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * Constant-velocity model over the most recent visible poses, used to predict where the head
+ * will be at a client's display time. The velocity is a least-squares fit over the poses
+ * captured within the window, which is less jumpy than differencing the last two.
+ * Not thread safe; owned by the thread that feeds it.
+ */
+public class PoseExtrapolator {
+
+    private static final int CAPACITY = 16;
+
+    private final long windowNanos;
+    private final long maxLeadNanos;
+
+    private final long[] times = new long[CAPACITY];
+    private final float[] xs = new float[CAPACITY];
+    private final float[] ys = new float[CAPACITY];
+    private final float[] zs = new float[CAPACITY];
+    private int count = 0;
+    private int newest = -1;
+
+    public PoseExtrapolator(long windowNanos, long maxLeadNanos) {
+        this.windowNanos = windowNanos;
+        this.maxLeadNanos = maxLeadNanos;
+    }
+
+    /** Adds a pose. Losing the head clears the history so a stale velocity is never reused. */
+    public void add(long captureNanos, boolean visible, float x, float y, float z) {
+        if (!visible) {
+            count = 0;
+            return;
+        }
+        if (count > 0 && captureNanos <= times[newest]) return;
+
+        newest = (newest + 1) % CAPACITY;
+        times[newest] = captureNanos;
+        xs[newest] = x;
+        ys[newest] = y;
+        zs[newest] = z;
+        count = Math.min(count + 1, CAPACITY);
+    }
+
+    public boolean isEmpty() {
+        return count == 0;
+    }
+
+    public long getNewestTime() {
+        return times[newest];
+    }
+
+    /**
+     * Predicts the position at targetNanos, with the lead past the newest pose clamped to the
+     * maximum. Returns false if there is no visible history.
+     */
+    public boolean extrapolate(long targetNanos, Vector3 out) {
+        if (count == 0) return false;
+
+        long newestTime = times[newest];
+        int used = 0;
+        double meanT = 0, meanX = 0, meanY = 0, meanZ = 0;
+        for (int n = 0; n < count; n++) {
+            int i = index(n);
+            if (newestTime - times[i] > windowNanos) break;
+            meanT += (times[i] - newestTime) / 1e9;
+            meanX += xs[i];
+            meanY += ys[i];
+            meanZ += zs[i];
+            used++;
+        }
+        meanT /= used;
+        meanX /= used;
+        meanY /= used;
+        meanZ /= used;
+
+        double stt = 0, stx = 0, sty = 0, stz = 0;
+        for (int n = 0; n < used; n++) {
+            int i = index(n);
+            double dt = (times[i] - newestTime) / 1e9 - meanT;
+            stt += dt * dt;
+            stx += dt * (xs[i] - meanX);
+            sty += dt * (ys[i] - meanY);
+            stz += dt * (zs[i] - meanZ);
+        }
+
+        long lead = Math.max(0, Math.min(maxLeadNanos, targetNanos - newestTime));
+        double t = lead / 1e9 - meanT;
+        if (stt == 0) out.set(xs[newest], ys[newest], zs[newest]);
+        else out.set((float) (meanX + stx / stt * t), (float) (meanY + sty / stt * t),
+                (float) (meanZ + stz / stt * t));
+        return true;
+    }
+
+    /**
+     * Interpolates the recorded position at timeNanos. Returns false if that time is not
+     * covered by the history.
+     */
+    public boolean positionAt(long timeNanos, Vector3 out) {
+        for (int n = 0; n + 1 < count; n++) {
+            int later = index(n), earlier = index(n + 1);
+            if (times[earlier] <= timeNanos && timeNanos <= times[later]) {
+                float f = (float) (timeNanos - times[earlier]) / (times[later] - times[earlier]);
+                out.set(xs[earlier] + f * (xs[later] - xs[earlier]),
+                        ys[earlier] + f * (ys[later] - ys[earlier]),
+                        zs[earlier] + f * (zs[later] - zs[earlier]));
+                return true;
+            }
+        }
+        if (count > 0 && times[newest] == timeNanos) {
+            out.set(xs[newest], ys[newest], zs[newest]);
+            return true;
+        }
+        return false;
+    }
+
+    /** Index of the n-th newest pose. */
+    private int index(int n) {
+        return (newest - n + CAPACITY) % CAPACITY;
+    }
+}
@@ -0,0 +1,37 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.badlogic.gdx.math.Vector3;
+
+/**
+ * Smooths the measured head position before it is published. Filters work from capture
+ * timestamps rather than loop iterations, so dropped or skipped frames do not change how fast
+ * they respond, and can report the position predicted some lead time past the capture, to make
+ * up for the pipeline latency.
+ *
+ * <p>While the head is not visible a filter holds its last output. A measurement arriving more
+ * than {@link #MAX_GAP_NANOS} after the previous visible one restarts the filter at that
+ * measurement, so no velocity from before the gap carries over.
+ */
+public abstract class PoseFilter {
+
+    public static final long MAX_GAP_NANOS = 250000000L;
+
+    /**
+     * Folds in measured, taken at captureNanos, and writes the filtered position at
+     * captureNanos + leadNanos to out. The measurement is ignored when not visible.
+     */
+    public abstract void filter(long captureNanos, Vector3 measured, boolean visible, long leadNanos,
+                                Vector3 out);
+
+    public static PoseFilter create(TrackerConfig config) {
+        switch (config.filterMode) {
+            case KALMAN:
+                return new KalmanPoseFilter(config.filterProcessNoise, config.filterMeasurementNoise);
+            case ONE_EURO:
+                return new OneEuroPoseFilter(config.filterMinCutoff, config.filterBeta,
+                        config.filterDerivativeCutoff);
+            default:
+                return new BlendPoseFilter();
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Append-only journal of published poses in a preallocated, memory-mapped file. A 32 byte header
+ * (magic, version, record size, capacity, record count) is followed by fixed-size records of
+ * sequence, capture nanos, publish nanos, flags and x, y, z. All values are big-endian.
+ *
+ * <p>The count is bumped after each record is complete, so a journal left behind by a crashed
+ * tracker is still consistent up to the last full record.
+ */
+public class PoseJournal {
+
+    public static final int MAGIC = 0x48544e4a; // "HTNJ"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 32;
+    public static final int RECORD_SIZE = 40;
+
+    private static final int COUNT_OFFSET = 24;
+    private static final int FLAG_VISIBLE = 1;
+
+    private final RandomAccessFile file;
+    private final MappedByteBuffer buffer;
+    private final long capacity;
+    private long count;
+
+    private PoseJournal(RandomAccessFile file, MappedByteBuffer buffer, long capacity, long count) {
+        this.file = file;
+        this.buffer = buffer;
+        this.capacity = capacity;
+        this.count = count;
+    }
+
+    /** Creates an empty journal with room for capacity records, replacing any existing file. */
+    public static PoseJournal create(File path, int capacity) throws IOException {
+        long size = HEADER_SIZE + (long) capacity * RECORD_SIZE;
+        if (size > Integer.MAX_VALUE) throw new IOException("Journal too large: " + capacity + " records");
+
+        RandomAccessFile file = new RandomAccessFile(path, "rw");
+        file.setLength(0);
+        file.setLength(size);
+        MappedByteBuffer buffer = file.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+        buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, RECORD_SIZE);
+        buffer.putLong(16, capacity).putLong(COUNT_OFFSET, 0);
+        return new PoseJournal(file, buffer, capacity, 0);
+    }
+
+    public static PoseJournal open(File path) throws IOException {
+        RandomAccessFile file = new RandomAccessFile(path, "r");
+        FileChannel channel = file.getChannel();
+        MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            file.close();
+            throw new IOException("Not a pose journal: " + path);
+        }
+        int version = buffer.getInt(4);
+        if (version != VERSION || buffer.getInt(8) != RECORD_SIZE) {
+            file.close();
+            throw new IOException("Unsupported pose journal version " + version);
+        }
+        long capacity = buffer.getLong(16);
+        long count = Math.min(buffer.getLong(COUNT_OFFSET), (buffer.limit() - HEADER_SIZE) / RECORD_SIZE);
+        return new PoseJournal(file, buffer, capacity, count);
+    }
+
+    /** Appends one pose. Returns false, writing nothing, once the journal is full. */
+    public boolean append(PoseSample sample) {
+        if (count == capacity) return false;
+
+        int p = (int) (HEADER_SIZE + count * RECORD_SIZE);
+        buffer.putLong(p, sample.sequence);
+        buffer.putLong(p + 8, sample.captureNanos);
+        buffer.putLong(p + 16, sample.publishNanos);
+        buffer.putInt(p + 24, sample.visible ? FLAG_VISIBLE : 0);
+        buffer.putFloat(p + 28, sample.x);
+        buffer.putFloat(p + 32, sample.y);
+        buffer.putFloat(p + 36, sample.z);
+        buffer.putLong(COUNT_OFFSET, ++count);
+        return true;
+    }
+
+    public void read(long index, PoseSample target) {
+        if (index < 0 || index >= count) throw new IndexOutOfBoundsException("Record " + index + " of " + count);
+
+        int p = (int) (HEADER_SIZE + index * RECORD_SIZE);
+        target.sequence = buffer.getLong(p);
+        target.captureNanos = buffer.getLong(p + 8);
+        target.publishNanos = buffer.getLong(p + 16);
+        target.visible = (buffer.getInt(p + 24) & FLAG_VISIBLE) != 0;
+        target.x = buffer.getFloat(p + 28);
+        target.y = buffer.getFloat(p + 32);
+        target.z = buffer.getFloat(p + 36);
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getCapacity() {
+        return capacity;
+    }
+
+    /** Flushes the mapped pages to disk and closes the file. */
+    public void close() throws IOException {
+        if (!file.getChannel().isOpen()) return;
+        try {
+            buffer.force();
+        } catch (UnsupportedOperationException e) {
+            // Read-only mapping
+        }
+        file.close();
+    }
+}
@@ -0,0 +1,40 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Appends every published pose to a {@link PoseJournal}. Runs as a publisher listener on the
+ * vision thread; an append is a few stores into mapped memory.
+ */
+public class PoseJournalRecorder implements Runnable {
+
+    private final PosePublisher publisher;
+    private final PoseJournal journal;
+    private final PoseSample sample = new PoseSample();
+    private boolean full = false;
+
+    public PoseJournalRecorder(PosePublisher publisher, File path, int capacity) throws IOException {
+        this.publisher = publisher;
+        journal = PoseJournal.create(path, capacity);
+        publisher.addListener(this);
+    }
+
+    @Override
+    public void run() {
+        publisher.read(sample);
+        if (!journal.append(sample) && !full) {
+            full = true;
+            System.err.println("Pose journal full after " + journal.getCount() + " poses; no longer recording");
+        }
+    }
+
+    public long getCount() {
+        return journal.getCount();
+    }
+
+    public void close() throws IOException {
+        publisher.removeListener(this);
+        journal.close();
+    }
+}
@@ -0,0 +1,79 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+
+/**
+ * Publishes the poses of a {@link PoseJournal} as if the tracker were producing them, keeping
+ * the recorded spacing divided by speed, or as fast as possible when speed is zero. Capture
+ * times are moved to the present so latency measured downstream stays meaningful.
+ */
+public class PoseJournalReplay implements Runnable {
+
+    private final PoseJournal journal;
+    private final PosePublisher publisher;
+    private final double speed;
+    private final boolean loop;
+
+    private volatile boolean running = true;
+
+    public PoseJournalReplay(PoseJournal journal, PosePublisher publisher, double speed, boolean loop) {
+        this.journal = journal;
+        this.publisher = publisher;
+        this.speed = speed;
+        this.loop = loop;
+    }
+
+    @Override
+    public void run() {
+        PoseSample sample = new PoseSample();
+        do {
+            long firstRecorded = 0, startNanos = System.nanoTime();
+            for (long i = 0; i < journal.getCount() && running; i++) {
+                journal.read(i, sample);
+                if (i == 0) firstRecorded = sample.captureNanos;
+
+                long now = System.nanoTime();
+                if (speed > 0) {
+                    long due = startNanos + (long) ((sample.captureNanos - firstRecorded) / speed);
+                    if (due - now > 0) {
+                        try {
+                            Thread.sleep((due - now) / 1000000, (int) ((due - now) % 1000000));
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                        now = System.nanoTime();
+                    }
+                }
+                publisher.publish(sample.x, sample.y, sample.z, sample.visible, now);
+            }
+        } while (loop && running && journal.getCount() > 0);
+    }
+
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Serves a recorded journal through the normal pose server, for testing clients without a
+     * camera: {@code <journal> [speed] [loop]}. The server mode and rate come from the usual
+     * tracker properties.
+     */
+    public static void main(String[] args) throws IOException {
+        double speed = args.length > 1 ? Double.parseDouble(args[1]) : 1;
+        boolean loop = args.length > 2 && Boolean.parseBoolean(args[2]);
+
+        TrackerConfig config = TrackerConfig.fromSystemProperties();
+        PoseJournal journal = PoseJournal.open(new File(args[0]));
+        PosePublisher publisher = new PosePublisher();
+        PoseServer server = DesktopLauncher.createServer(config, publisher, new TrackerMetrics(),
+                new InetSocketAddress(DesktopLauncher.POSE_PORT));
+
+        Thread replay = new Thread(new PoseJournalReplay(journal, publisher, speed, loop), "Pose replay");
+        replay.setDaemon(true);
+        replay.start();
+        System.out.println("Replaying " + journal.getCount() + " poses on port " + server.getPort());
+        server.run();
+    }
+}
@@ -0,0 +1,89 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands each new pose from the vision thread to the connection writers. Every publication gets
+ * the next sequence number and wakes the writers blocked in {@link #awaitNewer}. Reads go
+ * through a seqlock, so they never block the vision thread; it only takes the lock to signal
+ * when some writer is actually waiting.
+ */
+public class PosePublisher {
+
+    private final PoseSlot slot = new PoseSlot();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition published = lock.newCondition();
+    private volatile int waiting = 0;
+    private long sequence = 0;
+    private volatile Runnable[] listeners = new Runnable[0];
+
+    /** Vision thread only. */
+    public void publish(float x, float y, float z, boolean visible, long captureNanos) {
+        slot.write(++sequence, captureNanos, System.nanoTime(), visible, x, y, z);
+
+        for (Runnable listener : listeners) {
+            listener.run();
+        }
+
+        if (waiting > 0) {
+            lock.lock();
+            try {
+                published.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Runs listener on the vision thread after every publication. Listeners must return
+     * immediately, e.g. by waking a selector.
+     */
+    public synchronized void addListener(Runnable listener) {
+        Runnable[] updated = Arrays.copyOf(listeners, listeners.length + 1);
+        updated[listeners.length] = listener;
+        listeners = updated;
+    }
+
+    public synchronized void removeListener(Runnable listener) {
+        List<Runnable> updated = new ArrayList<Runnable>(Arrays.asList(listeners));
+        updated.remove(listener);
+        listeners = updated.toArray(new Runnable[updated.size()]);
+    }
+
+    public void read(PoseSample target) {
+        slot.read(target);
+    }
+
+    public long getSequence() {
+        return slot.getSequence();
+    }
+
+    /**
+     * Blocks until a pose newer than lastSequence is published or the timeout passes.
+     * Returns the current sequence number.
+     */
+    public long awaitNewer(long lastSequence, long timeout, TimeUnit unit)
+            throws InterruptedException {
+        long current = slot.getSequence();
+        if (current > lastSequence) return current;
+
+        long remaining = unit.toNanos(timeout);
+        lock.lock();
+        waiting++;
+        try {
+            while ((current = slot.getSequence()) <= lastSequence && remaining > 0) {
+                remaining = published.awaitNanos(remaining);
+            }
+            return current;
+        } finally {
+            waiting--;
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+/**
+ * One published head pose. Readers keep their own instance and copy into it.
+ */
+public class PoseSample {
+
+    public long sequence;
+    public long captureNanos;
+    public long publishNanos;
+    public boolean visible;
+    public float x, y, z;
+
+    public void set(PoseSample other) {
+        sequence = other.sequence;
+        captureNanos = other.captureNanos;
+        publishNanos = other.publishNanos;
+        visible = other.visible;
+        x = other.x;
+        y = other.y;
+        z = other.z;
+    }
+}
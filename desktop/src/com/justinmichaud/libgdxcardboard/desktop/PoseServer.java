@@ -0,0 +1,14 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+/**
+ * A server streaming published poses to TCP clients. {@link #run} serves until {@link #close}.
+ */
+public interface PoseServer extends Runnable {
+
+    int getPort();
+
+    int getClientCount();
+
+    /** Stops the server; safe to call from any thread. */
+    void close();
+}
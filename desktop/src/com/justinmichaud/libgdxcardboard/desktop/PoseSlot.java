@@ -0,0 +1,53 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Single-writer seqlock holding the latest pose. The writer never waits; readers retry while
+ * a write is in progress, so they always copy out a consistent sample without taking a lock.
+ */
+public class PoseSlot {
+
+    private static final int SEQUENCE = 0, CAPTURE = 1, PUBLISH = 2, VISIBLE = 3, X = 4, Y = 5, Z = 6;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLongArray fields = new AtomicLongArray(7);
+
+    /** Writer side; only one thread may write. */
+    public void write(long sequence, long captureNanos, long publishNanos, boolean visible,
+                      float x, float y, float z) {
+        long v = version.get();
+        version.set(v + 1);
+        fields.set(SEQUENCE, sequence);
+        fields.set(CAPTURE, captureNanos);
+        fields.set(PUBLISH, publishNanos);
+        fields.set(VISIBLE, visible ? 1 : 0);
+        fields.set(X, Float.floatToRawIntBits(x));
+        fields.set(Y, Float.floatToRawIntBits(y));
+        fields.set(Z, Float.floatToRawIntBits(z));
+        version.set(v + 2);
+    }
+
+    public void read(PoseSample target) {
+        while (true) {
+            long before = version.get();
+            if ((before & 1) == 0) {
+                target.sequence = fields.get(SEQUENCE);
+                target.captureNanos = fields.get(CAPTURE);
+                target.publishNanos = fields.get(PUBLISH);
+                target.visible = fields.get(VISIBLE) != 0;
+                target.x = Float.intBitsToFloat((int) fields.get(X));
+                target.y = Float.intBitsToFloat((int) fields.get(Y));
+                target.z = Float.intBitsToFloat((int) fields.get(Z));
+                if (version.get() == before) return;
+            }
+            Thread.yield();
+        }
+    }
+
+    /** Sequence number of the latest completed write. */
+    public long getSequence() {
+        return fields.get(SEQUENCE);
+    }
+}
@@ -0,0 +1,137 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import boofcv.abst.fiducial.FiducialDetector;
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Finds candidate fiducials on a downsampled copy of the frame, then re-detects each one at
+ * full resolution inside a window around the candidate so IDs and corners come from the
+ * full-resolution image. Each pyramid level halves the resolution.
+ */
+public class PyramidMarkerSearch extends MarkerSearch {
+
+    private static final double WINDOW_MARGIN = 1.5;
+    private static final int WINDOW_PADDING = 8;
+
+    private final IntrinsicParameters intrinsic;
+    private final IntrinsicParameters cropIntrinsic = new IntrinsicParameters();
+    private final int scale;
+    private final int maxMisses;
+
+    private final GrayU8[] levels;
+    private final FiducialDetector<GrayU8> coarseDetector;
+    private final FiducialDetector<GrayU8> fineDetector;
+    private final MarkerProjector coarseProjector;
+    private final MarkerProjector fineProjector;
+    private final Markers candidates = new Markers();
+    private final Markers refined = new Markers();
+    private final GrayU8 crop = new GrayU8();
+
+    private int misses = 0;
+
+    public PyramidMarkerSearch(IntrinsicParameters intrinsic, int levelCount, int maxMisses) {
+        this.intrinsic = intrinsic;
+        this.maxMisses = maxMisses;
+
+        levels = new GrayU8[levelCount];
+        int width = intrinsic.getWidth(), height = intrinsic.getHeight();
+        for (int i = 0; i < levelCount; i++) {
+            width /= 2;
+            height /= 2;
+            levels[i] = new GrayU8(width, height);
+        }
+        scale = 1 << levelCount;
+
+        IntrinsicParameters coarse = new IntrinsicParameters(intrinsic);
+        coarse.setCx(intrinsic.getCx() / scale);
+        coarse.setCy(intrinsic.getCy() / scale);
+        coarse.setFx(intrinsic.getFx() / scale);
+        coarse.setFy(intrinsic.getFy() / scale);
+        coarse.setWidth(width);
+        coarse.setHeight(height);
+
+        coarseDetector = createDetector(coarse);
+        coarseProjector = new MarkerProjector(coarse);
+        fineDetector = createDetector(intrinsic);
+        fineProjector = new MarkerProjector(intrinsic);
+    }
+
+    @Override
+    public void search(GrayU8 input, Markers found) {
+        found.reset();
+        candidates.reset();
+
+        if (misses >= maxMisses) {
+            fineDetector.setIntrinsic(intrinsic);
+            fineDetector.detect(input);
+            fineProjector.addAll(fineDetector, found);
+
+            boolean hit = found.size > 0;
+            record(SearchMode.FULL, hit);
+            if (hit) misses = 0;
+            return;
+        }
+
+        GrayU8 source = input;
+        for (GrayU8 level : levels) {
+            downsample(source, level);
+            source = level;
+        }
+
+        coarseDetector.detect(source);
+        coarseProjector.addAll(coarseDetector, candidates);
+
+        for (int i = 0; i < candidates.size; i++) {
+            double x = candidates.centreX[i] * scale;
+            double y = candidates.centreY[i] * scale;
+            double radius = Math.max(candidates.width[i], candidates.height[i]) * scale
+                    * WINDOW_MARGIN / 2 + WINDOW_PADDING;
+
+            int x0 = Math.max(0, (int) (x - radius));
+            int y0 = Math.max(0, (int) (y - radius));
+            int x1 = Math.min(input.width, (int) Math.ceil(x + radius));
+            int y1 = Math.min(input.height, (int) Math.ceil(y + radius));
+            if (x1 <= x0 || y1 <= y0) continue;
+
+            input.subimage(x0, y0, x1, y1, crop);
+            MarkerProjector.crop(intrinsic, x0, y0, x1 - x0, y1 - y0, cropIntrinsic);
+            fineDetector.setIntrinsic(cropIntrinsic);
+            fineDetector.detect(crop);
+
+            refined.reset();
+            fineProjector.addAll(fineDetector, refined);
+            for (int j = 0; j < refined.size; j++) {
+                found.addUnique(refined, j, WINDOW_PADDING);
+            }
+        }
+
+        boolean hit = found.size > 0;
+        record(SearchMode.PYRAMID, hit);
+        misses = hit ? 0 : misses + 1;
+    }
+
+    /**
+     * Markers the coarse level found in the last search, in coarse-level pixels. Empty when
+     * the last search fell back to full resolution.
+     */
+    public Markers getCandidates() {
+        return candidates;
+    }
+
+    /** 2x2 box average into an image of half the size. */
+    static void downsample(GrayU8 input, GrayU8 output) {
+        for (int y = 0; y < output.height; y++) {
+            int row0 = input.startIndex + 2 * y * input.stride;
+            int row1 = row0 + input.stride;
+            int dst = output.startIndex + y * output.stride;
+            for (int x = 0; x < output.width; x++) {
+                int sum = (input.data[row0] & 0xFF) + (input.data[row0 + 1] & 0xFF)
+                        + (input.data[row1] & 0xFF) + (input.data[row1 + 1] & 0xFF);
+                output.data[dst++] = (byte) ((sum + 2) >> 2);
+                row0 += 2;
+                row1 += 2;
+            }
+        }
+    }
+}
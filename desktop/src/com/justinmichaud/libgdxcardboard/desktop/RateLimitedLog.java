@@ -0,0 +1,47 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+/**
+ * Prints at most one line per interval and counts what it swallowed, so a message repeated
+ * every frame cannot slow down the loop that produces it.
+ */
+public class RateLimitedLog {
+
+    private final long intervalNanos;
+    private long nextNanos = Long.MIN_VALUE;
+    private long suppressed = 0;
+
+    public RateLimitedLog(long intervalMillis) {
+        intervalNanos = intervalMillis * 1000000L;
+    }
+
+    public void log(String message, long value) {
+        if (allow()) print(message + value);
+    }
+
+    public void log(String message, Throwable error) {
+        if (allow()) {
+            print(message + ": " + error);
+            error.printStackTrace();
+        }
+    }
+
+    private synchronized boolean allow() {
+        long now = System.nanoTime();
+        if (nextNanos != Long.MIN_VALUE && now - nextNanos < 0) {
+            suppressed++;
+            return false;
+        }
+        nextNanos = now + intervalNanos;
+        return true;
+    }
+
+    private void print(String line) {
+        long dropped;
+        synchronized (this) {
+            dropped = suppressed;
+            suppressed = 0;
+        }
+        if (dropped > 0) line += " (" + dropped + " similar messages suppressed)";
+        System.out.println(line);
+    }
+}
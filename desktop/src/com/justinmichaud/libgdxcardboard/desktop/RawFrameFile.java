@@ -0,0 +1,40 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Layout of a raw recorded frame file: a 16 byte header (magic, version, width, height) followed
+ * by fixed-size records of an 8 byte capture timestamp in nanoseconds and width * height gray
+ * bytes, row by row. All integers are big-endian.
+ */
+public final class RawFrameFile {
+
+    public static final int MAGIC = 0x48544e46; // "HTNF"
+    public static final int VERSION = 1;
+    public static final int HEADER_SIZE = 16;
+    public static final int TIMESTAMP_SIZE = 8;
+
+    private RawFrameFile() {
+    }
+
+    public static int recordSize(int width, int height) {
+        return TIMESTAMP_SIZE + width * height;
+    }
+
+    public static void writeHeader(ByteBuffer header, int width, int height) {
+        header.clear();
+        header.putInt(MAGIC).putInt(VERSION).putInt(width).putInt(height);
+        header.flip();
+    }
+
+    /** Checks the header and returns {width, height}. */
+    public static int[] readHeader(ByteBuffer header) throws IOException {
+        if (header.remaining() < HEADER_SIZE || header.getInt() != MAGIC) {
+            throw new IOException("Not a raw frame file");
+        }
+        int version = header.getInt();
+        if (version != VERSION) throw new IOException("Unsupported raw frame version " + version);
+        return new int[] {header.getInt(), header.getInt()};
+    }
+}
@@ -0,0 +1,97 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Replays a {@link RawFrameFile}, reading each frame straight into the target gray image. The
+ * ByteBuffer wrapping each target image's pixels is made once and reused, so replaying into a
+ * pool of frames does not allocate per frame.
+ */
+public class RawFrameFileSource extends FrameSource {
+
+    /** More target images than any frame pool holds; past this the wrappers are dropped. */
+    private static final int MAX_WRAPPED_IMAGES = 64;
+
+    private final FileInputStream stream;
+    private final FileChannel channel;
+    private final boolean loop;
+    private final int width, height;
+    private final ByteBuffer timestamp = ByteBuffer.allocate(RawFrameFile.TIMESTAMP_SIZE);
+    private final Map<byte[], ByteBuffer> wrapped = new IdentityHashMap<byte[], ByteBuffer>();
+
+    public RawFrameFileSource(File file, Pacing pacing, boolean loop) throws IOException {
+        super(pacing);
+        this.loop = loop;
+        stream = new FileInputStream(file);
+        channel = stream.getChannel();
+
+        ByteBuffer header = ByteBuffer.allocate(RawFrameFile.HEADER_SIZE);
+        readFully(header);
+        header.flip();
+        int[] size = RawFrameFile.readHeader(header);
+        width = size[0];
+        height = size[1];
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean read(GrayU8 output) throws IOException {
+        if (channel.position() + RawFrameFile.recordSize(width, height) > channel.size()) {
+            if (!loop) return false;
+            channel.position(RawFrameFile.HEADER_SIZE);
+            resetPacing();
+        }
+
+        timestamp.clear();
+        readFully(timestamp);
+        long recordedNanos = timestamp.getLong(0);
+
+        output.reshape(width, height);
+        readFully(pixels(output));
+
+        pace(recordedNanos);
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    /** Buffer over output's pixels, positioned for a whole frame. */
+    private ByteBuffer pixels(GrayU8 output) {
+        ByteBuffer buffer = wrapped.get(output.data);
+        if (buffer == null) {
+            if (wrapped.size() >= MAX_WRAPPED_IMAGES) wrapped.clear();
+            buffer = ByteBuffer.wrap(output.data);
+            wrapped.put(output.data, buffer);
+        }
+        buffer.limit(output.startIndex + width * height);
+        buffer.position(output.startIndex);
+        return buffer;
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException();
+        }
+    }
+}
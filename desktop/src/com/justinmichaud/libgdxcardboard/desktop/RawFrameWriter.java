@@ -0,0 +1,80 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Writes gray frames to a {@link RawFrameFile} that {@link RawFrameFileSource} can replay.
+ */
+public class RawFrameWriter {
+
+    private final FileOutputStream stream;
+    private final FileChannel channel;
+    private final int width, height;
+    private final ByteBuffer timestamp = ByteBuffer.allocate(RawFrameFile.TIMESTAMP_SIZE);
+
+    public RawFrameWriter(File file, int width, int height) throws IOException {
+        this.width = width;
+        this.height = height;
+        stream = new FileOutputStream(file);
+        channel = stream.getChannel();
+
+        ByteBuffer header = ByteBuffer.allocate(RawFrameFile.HEADER_SIZE);
+        RawFrameFile.writeHeader(header, width, height);
+        writeFully(header);
+    }
+
+    public void write(GrayU8 frame, long captureNanos) throws IOException {
+        timestamp.clear();
+        timestamp.putLong(captureNanos).flip();
+        writeFully(timestamp);
+
+        for (int y = 0; y < height; y++) {
+            writeFully(ByteBuffer.wrap(frame.data, frame.startIndex + y * frame.stride, width));
+        }
+    }
+
+    /** Writes one frame already packed row by row, as the remaining bytes of frame. */
+    public void write(ByteBuffer frame, long captureNanos) throws IOException {
+        timestamp.clear();
+        timestamp.putLong(captureNanos).flip();
+        writeFully(timestamp);
+        writeFully(frame);
+    }
+
+    public void close() throws IOException {
+        stream.close();
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /** Converts an image sequence directory into a raw frame file: {@code <dir> <out> [fps]}. */
+    public static void main(String[] args) throws IOException {
+        double fps = args.length > 2 ? Double.parseDouble(args[2]) : 30;
+        ImageSequenceFrameSource source = new ImageSequenceFrameSource(
+                new File(args[0]), FrameSource.Pacing.FAST, fps, false);
+        RawFrameWriter writer = new RawFrameWriter(new File(args[1]),
+                source.getWidth(), source.getHeight());
+
+        GrayU8 frame = new GrayU8(source.getWidth(), source.getHeight());
+        long frameNanos = (long) (1e9 / fps);
+        long recordedNanos = 0;
+        int count = 0;
+        while (source.read(frame)) {
+            writer.write(frame, recordedNanos);
+            recordedNanos += frameNanos;
+            count++;
+        }
+        writer.close();
+        System.out.println("Wrote " + count + " frames to " + args[1]);
+    }
+}
@@ -0,0 +1,53 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+/**
+ * Puts results that finish out of order back into ticket order. Producers hand in each result
+ * with the ticket it was issued; the single consumer takes them strictly by ticket, waiting for
+ * the next one even if later ones are already done. A producer more than the capacity ahead of
+ * the consumer waits for room, which can never deadlock because the ticket the consumer wants is
+ * always at most capacity behind any waiting producer. Capacity is rounded up to a power of two.
+ */
+public class ReorderBuffer<T> {
+
+    private final Object[] slots;
+    private final int mask;
+    private long next = 0;
+
+    public ReorderBuffer(int capacity) {
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new Object[size];
+        mask = size - 1;
+    }
+
+    /** Producer side. Stores the result for ticket, waiting while the buffer is too far behind. */
+    public synchronized void put(long ticket, T item) throws InterruptedException {
+        while (ticket - next > mask) wait();
+        slots[(int) ticket & mask] = item;
+        if (ticket == next) notifyAll();
+    }
+
+    /** Consumer side. Blocks until the result for the next ticket is in, and returns it. */
+    @SuppressWarnings("unchecked")
+    public synchronized T take() throws InterruptedException {
+        int index = (int) next & mask;
+        while (slots[index] == null) wait();
+        T item = (T) slots[index];
+        slots[index] = null;
+        next++;
+        notifyAll();
+        return item;
+    }
+
+    /** Results that are done but still waiting on an earlier ticket. */
+    public synchronized int waiting() {
+        int count = 0;
+        for (Object slot : slots) {
+            if (slot != null) count++;
+        }
+        return count;
+    }
+
+    public int capacity() {
+        return mask + 1;
+    }
+}
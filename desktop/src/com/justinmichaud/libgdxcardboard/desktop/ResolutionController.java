@@ -0,0 +1,168 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Picks the rung of a resolution ladder that detection runs at, from the measured frame time
+ * and the apparent size of the head fiducials. It steps down when frames take longer than the
+ * budget for the target pose rate, as long as the markers stay big enough to detect one rung
+ * down, and also when the markers are so big that the rung below is plenty. It steps back up
+ * when the markers are small (or lost) and the frame time predicted for the rung above still
+ * leaves headroom. Frames that ran detection and frames that only tracked are timed apart, so
+ * the prediction swaps the detection cost only on the share of frames that pay it. The
+ * thresholds for the two directions are apart, and nothing changes until the previous switch
+ * has held for a number of frames, so the rung does not flap.
+ * Called from the vision thread only.
+ */
+public class ResolutionController {
+
+    private static final double UP_HEADROOM = 0.8;
+    private static final double COMFORTABLE_MARKER = 2;
+
+    private final int[] widths;
+    private final int[] heights;
+    private final double[] scales;
+    private final long budgetNanos;
+    private final double minMarkerPixels;
+    private final int holdFrames;
+
+    private final double[] detectNanos;
+    private double frameNanos = 0;
+    private double lastDetectNanos = 0;
+    private double detectFrameOtherNanos = 0;
+    private double trackFrameNanos = 0;
+    private double detectFraction = -1;
+    private volatile int rung = 0;
+    private int sinceSwitch = 0;
+    private final AtomicLong switches = new AtomicLong();
+
+    /**
+     * Rungs are the distinct heights of ladder no taller than the capture, highest first
+     * whatever order they are given in, keeping the capture aspect ratio.
+     */
+    public ResolutionController(int captureWidth, int captureHeight, int[] ladder, double targetRate,
+                                double minMarkerPixels, int holdFrames) {
+        int[] sorted = ladder.clone();
+        Arrays.sort(sorted);
+        int[] distinct = new int[sorted.length];
+        int count = 0;
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            int height = sorted[i];
+            if (height <= 0 || height > captureHeight) continue;
+            if (count > 0 && distinct[count - 1] == height) continue;
+            distinct[count++] = height;
+        }
+        if (count == 0) {
+            distinct = new int[] { captureHeight };
+            count = 1;
+        }
+
+        widths = new int[count];
+        heights = new int[count];
+        scales = new double[count];
+        for (int i = 0; i < count; i++) {
+            heights[i] = distinct[i];
+            widths[i] = (int) Math.round(captureWidth * (double) distinct[i] / captureHeight);
+            scales[i] = distinct[i] / (double) captureHeight;
+        }
+
+        budgetNanos = (long) (1e9 / targetRate);
+        this.minMarkerPixels = minMarkerPixels;
+        this.holdFrames = holdFrames;
+        detectNanos = new double[count];
+    }
+
+    /** Detection time spent at the current rung. */
+    public void detected(long nanos) {
+        int r = rung;
+        detectNanos[r] = average(detectNanos[r], nanos);
+        lastDetectNanos = nanos;
+    }
+
+    /**
+     * Called once per frame with the vision thread's time on it, whether it ran detection, and
+     * the head quad's width in full-resolution pixels.
+     */
+    public void frame(long nanos, boolean searched, boolean visible, double markerPixels) {
+        frameNanos = average(frameNanos, nanos);
+        if (searched) {
+            detectFrameOtherNanos = average(detectFrameOtherNanos, Math.max(0, nanos - lastDetectNanos));
+        }
+        else trackFrameNanos = average(trackFrameNanos, nanos);
+        detectFraction = detectFraction < 0 ? (searched ? 1 : 0) : 0.9 * detectFraction + (searched ? 0.1 : 0);
+        if (++sinceSwitch < holdFrames) return;
+
+        int r = rung;
+        boolean canGoDown = r + 1 < heights.length;
+        if (canGoDown && frameNanos > budgetNanos
+                && (!visible || markerPixels * scales[r + 1] >= minMarkerPixels)) {
+            switchTo(r + 1);
+        }
+        else if (canGoDown && visible
+                && markerPixels * scales[r + 1] >= COMFORTABLE_MARKER * minMarkerPixels) {
+            switchTo(r + 1);
+        }
+        else if (r > 0 && (!visible || markerPixels * scales[r] < minMarkerPixels)
+                && predictFrameNanos(r - 1) < UP_HEADROOM * budgetNanos) {
+            switchTo(r - 1);
+        }
+    }
+
+    /**
+     * Mean frame time expected at rung r: detecting frames cost their other work plus detection
+     * at r, tracking-only frames cost what they do now, weighted by how often detection runs.
+     */
+    private double predictFrameNanos(int r) {
+        int current = rung;
+        double detect = detectNanos[r];
+        if (detect == 0) {
+            double area = scales[r] * scales[r] / (scales[current] * scales[current]);
+            detect = detectNanos[current] * area;
+        }
+        double fraction = Math.max(0, detectFraction);
+        return fraction * (detectFrameOtherNanos + detect) + (1 - fraction) * trackFrameNanos;
+    }
+
+    private static double average(double average, double sample) {
+        return average == 0 ? sample : 0.9 * average + 0.1 * sample;
+    }
+
+    private void switchTo(int r) {
+        rung = r;
+        sinceSwitch = 0;
+        switches.incrementAndGet();
+    }
+
+    public int getRung() {
+        return rung;
+    }
+
+    public int getRungCount() {
+        return heights.length;
+    }
+
+    public int getWidth(int r) {
+        return widths[r];
+    }
+
+    public int getHeight(int r) {
+        return heights[r];
+    }
+
+    public double getScale(int r) {
+        return scales[r];
+    }
+
+    public long getSwitches() {
+        return switches.get();
+    }
+
+    public double getFrameNanos() {
+        return frameNanos;
+    }
+
+    public long getBudgetNanos() {
+        return budgetNanos;
+    }
+}
@@ -0,0 +1,139 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import boofcv.abst.fiducial.FiducialDetector;
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+import georegression.struct.shapes.Quadrilateral_F64;
+
+/**
+ * Searches a window around where the head is predicted to be, based on where the head markers
+ * were last seen and how fast they were moving. The window covers the whole bounding box of
+ * the head markers, not just the head quad averaged from them; on frames carried by the
+ * tracker the quad is all there is. Falls back to a full-frame scan after too many consecutive
+ * misses.
+ */
+public class RoiMarkerSearch extends MarkerSearch {
+
+    private static final int MIN_WINDOW = 32;
+
+    private final IntrinsicParameters intrinsic;
+    private final IntrinsicParameters cropIntrinsic = new IntrinsicParameters();
+    private final FiducialDetector<GrayU8> fullDetector;
+    private final FiducialDetector<GrayU8> roiDetector;
+    private final MarkerProjector projector;
+    private final GrayU8 crop = new GrayU8();
+
+    private final int maxMisses;
+    private final double margin;
+
+    private boolean known = false;
+    private double centreX, centreY, extent;
+    private double velocityX, velocityY;
+    private int misses = 0;
+
+    /** Bounding box of the head markers found by the last search, until update takes it. */
+    private boolean markersFound = false;
+    private double markerMinX, markerMinY, markerMaxX, markerMaxY;
+
+    public RoiMarkerSearch(IntrinsicParameters intrinsic, int maxMisses, double margin) {
+        this.intrinsic = intrinsic;
+        this.maxMisses = maxMisses;
+        this.margin = margin;
+        fullDetector = createDetector(intrinsic);
+        roiDetector = createDetector(intrinsic);
+        projector = new MarkerProjector(intrinsic);
+    }
+
+    @Override
+    public void search(GrayU8 input, Markers found) {
+        found.reset();
+
+        if (known && misses < maxMisses) {
+            double predictedX = centreX + velocityX;
+            double predictedY = centreY + velocityY;
+            double radiusX = extent / 2 * margin + Math.abs(velocityX);
+            double radiusY = extent / 2 * margin + Math.abs(velocityY);
+
+            int x0 = Math.max(0, (int) (predictedX - radiusX));
+            int y0 = Math.max(0, (int) (predictedY - radiusY));
+            int x1 = Math.min(input.width, (int) Math.ceil(predictedX + radiusX));
+            int y1 = Math.min(input.height, (int) Math.ceil(predictedY + radiusY));
+
+            if (x1 - x0 >= MIN_WINDOW && y1 - y0 >= MIN_WINDOW) {
+                input.subimage(x0, y0, x1, y1, crop);
+                MarkerProjector.crop(intrinsic, x0, y0, x1 - x0, y1 - y0, cropIntrinsic);
+                roiDetector.setIntrinsic(cropIntrinsic);
+                roiDetector.detect(crop);
+                projector.addAll(roiDetector, found);
+
+                boolean hit = found.size > 0;
+                record(SearchMode.ROI, hit);
+                bound(found);
+                misses = hit ? 0 : misses + 1;
+                return;
+            }
+        }
+
+        fullDetector.detect(input);
+        projector.addAll(fullDetector, found);
+
+        boolean hit = found.size > 0;
+        record(SearchMode.FULL, hit);
+        bound(found);
+        if (hit) misses = 0;
+    }
+
+    private void bound(Markers found) {
+        markersFound = false;
+        for (int i = 0; i < found.size; i++) {
+            if (!HeadEstimator.isHeadMarker(found.id[i])) continue;
+            double minX = found.centreX[i] - found.width[i] / 2, maxX = found.centreX[i] + found.width[i] / 2;
+            double minY = found.centreY[i] - found.height[i] / 2, maxY = found.centreY[i] + found.height[i] / 2;
+            if (!markersFound) {
+                markerMinX = minX;
+                markerMaxX = maxX;
+                markerMinY = minY;
+                markerMaxY = maxY;
+                markersFound = true;
+                continue;
+            }
+            markerMinX = Math.min(markerMinX, minX);
+            markerMaxX = Math.max(markerMaxX, maxX);
+            markerMinY = Math.min(markerMinY, minY);
+            markerMaxY = Math.max(markerMaxY, maxY);
+        }
+    }
+
+    @Override
+    public void update(Quadrilateral_F64 head, boolean visible) {
+        boolean fromMarkers = markersFound;
+        markersFound = false;
+        if (!visible) return;
+
+        double minX, maxX, minY, maxY;
+        if (fromMarkers) {
+            minX = markerMinX;
+            maxX = markerMaxX;
+            minY = markerMinY;
+            maxY = markerMaxY;
+        } else {
+            minX = Math.min(Math.min(head.a.x, head.b.x), Math.min(head.c.x, head.d.x));
+            maxX = Math.max(Math.max(head.a.x, head.b.x), Math.max(head.c.x, head.d.x));
+            minY = Math.min(Math.min(head.a.y, head.b.y), Math.min(head.c.y, head.d.y));
+            maxY = Math.max(Math.max(head.a.y, head.b.y), Math.max(head.c.y, head.d.y));
+        }
+        double x = (minX + maxX) / 2;
+        double y = (minY + maxY) / 2;
+
+        if (known) {
+            velocityX = 0.5 * velocityX + 0.5 * (x - centreX);
+            velocityY = 0.5 * velocityY + 0.5 * (y - centreY);
+        } else {
+            velocityX = velocityY = 0;
+        }
+        centreX = x;
+        centreY = y;
+        extent = Math.max(maxX - minX, maxY - minY);
+        known = true;
+    }
+}
@@ -0,0 +1,9 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+public enum SearchMode {
+    FULL,
+    ROI,
+    PYRAMID,
+    TILED,
+    ADAPTIVE
+}
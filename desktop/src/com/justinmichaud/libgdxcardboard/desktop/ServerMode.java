@@ -0,0 +1,7 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+public enum ServerMode {
+    SELECTOR,
+    VIRTUAL,
+    PLATFORM
+}
@@ -0,0 +1,47 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Reader library for the shared-memory pose file written by {@link SharedPoseWriter}. Any number
+ * of processes on the same host can read it; reads are plain memory loads, no syscalls.
+ */
+public class SharedPoseReader {
+
+    private final MappedPoseFile file;
+
+    public SharedPoseReader(File path) throws IOException {
+        file = MappedPoseFile.open(path);
+    }
+
+    /** Sequence number of the newest pose, 0 before the first one. */
+    public long getSequence() {
+        return file.latestSequence();
+    }
+
+    /**
+     * Copies the newest pose into target. Returns false if nothing was published yet, or if
+     * the writer stalled in the middle of writing it.
+     */
+    public boolean readLatest(PoseSample target) {
+        return file.read(MappedPoseFile.LATEST_RECORD, target);
+    }
+
+    /**
+     * Copies the pose with the given sequence number from the history ring. Returns false if
+     * it has already been overwritten, was never published, or the writer stalled on it.
+     */
+    public boolean readHistory(long sequence, PoseSample target) {
+        if (sequence <= 0) return false;
+        return file.read(file.historyRecord(sequence), target) && target.sequence == sequence;
+    }
+
+    public int getHistoryCapacity() {
+        return file.getCapacity();
+    }
+
+    public void close() throws IOException {
+        file.close();
+    }
+}
@@ -0,0 +1,36 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Mirrors every published pose into a {@link MappedPoseFile}. Runs as a publisher listener on
+ * the vision thread; a write is a handful of stores into mapped memory.
+ */
+public class SharedPoseWriter implements Runnable {
+
+    private final PosePublisher publisher;
+    private final MappedPoseFile file;
+    private final PoseSample sample = new PoseSample();
+
+    public SharedPoseWriter(PosePublisher publisher, File path, int historyCapacity) throws IOException {
+        this.publisher = publisher;
+        file = MappedPoseFile.create(path, historyCapacity);
+        publisher.addListener(this);
+    }
+
+    @Override
+    public void run() {
+        publisher.read(sample);
+        file.write(file.historyRecord(sample.sequence), sample.sequence, sample.captureNanos,
+                sample.publishNanos, sample.visible, sample.x, sample.y, sample.z);
+        file.write(MappedPoseFile.LATEST_RECORD, sample.sequence, sample.captureNanos,
+                sample.publishNanos, sample.visible, sample.x, sample.y, sample.z);
+        file.publishSequence(sample.sequence);
+    }
+
+    public void close() throws IOException {
+        publisher.removeListener(this);
+        file.close();
+    }
+}
@@ -0,0 +1,345 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.badlogic.gdx.math.Vector3;
+import com.justinmichaud.libgdxcardboard.PoseCodec;
+import com.justinmichaud.libgdxcardboard.PoseFrame;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.reflect.Method;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pose server that gives every client its own thread doing plain blocking I/O. With virtual
+ * threads (JDK 21+) that scales to thousands of clients; otherwise it falls back to a pool of
+ * platform threads. Writers wait in {@link PosePublisher#awaitNewer}, which is built on a
+ * ReentrantLock, and socket streams use j.u.c locks too, so neither the hand-off from the
+ * tracker nor a blocked write pins a virtual thread to its carrier.
+ *
+ * <p>Clients negotiate text or binary frames as with {@link PoseBroadcastServer}. A second
+ * thread per client reads what the client sends: pings are answered with pongs, stream
+ * options set the client's rate (never above the server's), deadband and heartbeat, and
+ * extrapolation requests get poses predicted to the client's display time, as on that server.
+ * Each writer keeps its own extrapolator over the poses it has seen; unlike the selector server,
+ * prediction errors are not scored into the metrics. Text clients' input is drained and
+ * discarded. Either way a client that hangs up is noticed at once rather than on the next
+ * failed write.
+ */
+public class ThreadPerConnectionServer implements PoseServer {
+
+    private static final int NEGOTIATION_TIMEOUT_MILLIS = 250;
+
+    private final PosePublisher publisher;
+    private final TrackerMetrics metrics;
+    private final long minIntervalNanos;
+
+    private final ServerSocket server;
+    private final ExecutorService connections;
+    private final boolean virtual;
+    private final Set<Socket> clients = ConcurrentHashMap.newKeySet();
+
+    private volatile boolean running = true;
+
+    public ThreadPerConnectionServer(PosePublisher publisher, TrackerMetrics metrics, InetSocketAddress address,
+                                     long minIntervalNanos, boolean preferVirtual) throws IOException {
+        this.publisher = publisher;
+        this.metrics = metrics;
+        this.minIntervalNanos = minIntervalNanos;
+
+        ExecutorService executor = preferVirtual ? newVirtualThreadExecutor() : null;
+        virtual = executor != null;
+        connections = virtual ? executor : Executors.newCachedThreadPool();
+
+        server = new ServerSocket();
+        server.setReuseAddress(true);
+        server.bind(address);
+    }
+
+    /** Returns a virtual-thread-per-task executor, or null before JDK 21. */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    public boolean isVirtual() {
+        return virtual;
+    }
+
+    @Override
+    public int getPort() {
+        return server.getLocalPort();
+    }
+
+    @Override
+    public int getClientCount() {
+        return clients.size();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                final Socket socket = server.accept();
+                socket.setTcpNoDelay(true);
+                clients.add(socket);
+                connections.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        serve(socket);
+                    }
+                });
+            }
+        } catch (IOException e) {
+            if (running) e.printStackTrace();
+        } finally {
+            close();
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            server.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+        for (Socket socket : clients) {
+            closeQuietly(socket);
+        }
+        connections.shutdown();
+    }
+
+    private void serve(Socket socket) {
+        try {
+            final Connection connection = new Connection(socket, negotiate(socket));
+            connections.execute(new Runnable() {
+                @Override
+                public void run() {
+                    connection.readControl();
+                }
+            });
+            connection.writePoses();
+        } catch (IOException e) {
+            // Client went away
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            clients.remove(socket);
+            closeQuietly(socket);
+        }
+    }
+
+    /** Waits briefly for the client to ask for binary frames; anything else means text. */
+    private boolean negotiate(Socket socket) throws IOException {
+        InputStream in = socket.getInputStream();
+        socket.setSoTimeout(NEGOTIATION_TIMEOUT_MILLIS);
+        try {
+            return in.read() == PoseCodec.NEGOTIATE_BINARY;
+        } catch (SocketTimeoutException e) {
+            return false;
+        } finally {
+            socket.setSoTimeout(0);
+        }
+    }
+
+    private class Connection {
+        final Socket socket;
+        final boolean binary;
+        final OutputStream out;
+        final ReentrantLock writeLock = new ReentrantLock();
+
+        volatile long clientIntervalNanos = 0;
+        volatile float deadband = 0;
+        volatile long heartbeatNanos = 0;
+        volatile long leadNanos = 0;
+
+        final PoseExtrapolator extrapolator = new PoseExtrapolator(
+                PoseBroadcastServer.EXTRAPOLATION_WINDOW_NANOS, PoseBroadcastServer.MAX_LEAD_NANOS);
+        final Vector3 predicted = new Vector3();
+        final PoseFrame predictedFrame = new PoseFrame();
+
+        boolean sentVisible;
+        float sentX, sentY, sentZ;
+
+        Connection(Socket socket, boolean binary) throws IOException {
+            this.socket = socket;
+            this.binary = binary;
+            out = socket.getOutputStream();
+        }
+
+        void writePoses() throws IOException, InterruptedException {
+            ByteBuffer frame = ByteBuffer.allocate(PoseCodec.FRAME_SIZE);
+            PoseSample sample = new PoseSample();
+            Vector3 position = new Vector3();
+
+            long lastSequence = 0;
+            long lastSentNanos = 0;
+            while (running && !socket.isClosed()) {
+                long heartbeat = heartbeatNanos;
+                boolean awaitingHeartbeat = heartbeat > 0 && lastSentNanos != 0;
+                long timeout = awaitingHeartbeat
+                        ? Math.max(1, lastSentNanos + heartbeat - System.nanoTime()) : TimeUnit.SECONDS.toNanos(1);
+                boolean fresh = publisher.awaitNewer(lastSequence, timeout, TimeUnit.NANOSECONDS) > lastSequence;
+                boolean heartbeatDue = awaitingHeartbeat && System.nanoTime() - lastSentNanos >= heartbeat;
+                if (!fresh && !heartbeatDue) continue;
+
+                publisher.read(sample);
+                extrapolator.add(sample.captureNanos, sample.visible, sample.x, sample.y, sample.z);
+                boolean repeat = !fresh || isInsideDeadband(sample, lastSentNanos);
+                if (repeat && !heartbeatDue) {
+                    lastSequence = sample.sequence;
+                    if (metrics != null) metrics.poseSuppressed();
+                    continue;
+                }
+
+                long wait = lastSentNanos + Math.max(minIntervalNanos, clientIntervalNanos) - System.nanoTime();
+                if (!heartbeatDue && lastSentNanos != 0 && wait > 0) {
+                    LockSupport.parkNanos(wait);
+                    publisher.read(sample);
+                    extrapolator.add(sample.captureNanos, sample.visible, sample.x, sample.y, sample.z);
+                }
+
+                frame.clear();
+                long lead = leadNanos;
+                if (binary && lead > 0) {
+                    encodePredicted(frame, sample, lead);
+                    write(frame.array(), frame.position());
+                } else if (binary) {
+                    PoseCodec.encodePose(frame, sample.sequence, sample.captureNanos,
+                            sample.visible, sample.x, sample.y, sample.z);
+                    write(frame.array(), frame.position());
+                } else {
+                    String text = sample.visible ? position.set(sample.x, sample.y, sample.z).toString() : "null";
+                    byte[] bytes = (text + "\n").getBytes();
+                    write(bytes, bytes.length);
+                }
+
+                lastSequence = sample.sequence;
+                lastSentNanos = System.nanoTime();
+                sentVisible = sample.visible;
+                sentX = sample.x;
+                sentY = sample.y;
+                sentZ = sample.z;
+                if (metrics != null) {
+                    metrics.publishToWrite.record(lastSentNanos - sample.publishNanos);
+                    if (repeat) metrics.heartbeatSent();
+                }
+            }
+        }
+
+        void encodePredicted(ByteBuffer frame, PoseSample sample, long lead) {
+            long targetNanos = System.nanoTime() + lead;
+            boolean visible = sample.visible && extrapolator.extrapolate(targetNanos, predicted);
+            if (!visible) predicted.set(sample.x, sample.y, sample.z);
+
+            predictedFrame.sequence = sample.sequence;
+            predictedFrame.captureNanos = targetNanos;
+            predictedFrame.visible = visible;
+            predictedFrame.predicted = true;
+            predictedFrame.x = predicted.x;
+            predictedFrame.y = predicted.y;
+            predictedFrame.z = predicted.z;
+            PoseCodec.encodePose(frame, predictedFrame);
+        }
+
+        boolean isInsideDeadband(PoseSample sample, long lastSentNanos) {
+            float band = deadband;
+            if (band <= 0 || lastSentNanos == 0 || sample.visible != sentVisible) return false;
+            if (!sample.visible) return true;
+            float dx = sample.x - sentX, dy = sample.y - sentY, dz = sample.z - sentZ;
+            return dx * dx + dy * dy + dz * dz < band * band;
+        }
+
+        /** Runs on its own thread; closes the socket when the client hangs up or misbehaves. */
+        void readControl() {
+            try {
+                InputStream in = socket.getInputStream();
+                if (!binary) {
+                    byte[] discard = new byte[256];
+                    while (in.read(discard) >= 0) {
+                        // Text clients have nothing to say
+                    }
+                    return;
+                }
+
+                ByteBuffer buffer = ByteBuffer.allocate(64);
+                ByteBuffer pong = ByteBuffer.allocate(PoseCodec.PONG_SIZE);
+                long[] times = new long[3];
+                float[] options = new float[3];
+                while (true) {
+                    int read = in.read(buffer.array(), buffer.position(), buffer.remaining());
+                    if (read < 0) return;
+                    long receivedNanos = System.nanoTime();
+                    buffer.position(buffer.position() + read);
+
+                    buffer.flip();
+                    while (buffer.remaining() >= PoseCodec.HEADER_SIZE) {
+                        int type = PoseCodec.peekType(buffer);
+                        int size = PoseCodec.messageSize(type);
+                        if (size < 0) return;
+                        if (buffer.remaining() < size) break;
+
+                        if (type == PoseCodec.TYPE_PING) {
+                            PoseCodec.decodePing(buffer, times);
+                            if (metrics != null && times[2] > 0) metrics.clockSync(times[1], times[2]);
+                            pong.clear();
+                            PoseCodec.encodePong(pong, times[0], receivedNanos, System.nanoTime());
+                            write(pong.array(), pong.position());
+                        } else if (type == PoseCodec.TYPE_STREAM_OPTIONS) {
+                            PoseCodec.decodeStreamOptions(buffer, options);
+                            clientIntervalNanos = options[0] > 0 ? (long) (1e9 / options[0]) : 0;
+                            deadband = Math.max(0, options[1]);
+                            heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(0, (int) options[2]));
+                        } else if (type == PoseCodec.TYPE_EXTRAPOLATE) {
+                            leadNanos = Math.max(0, Math.min(PoseBroadcastServer.MAX_LEAD_NANOS,
+                                    PoseCodec.decodeExtrapolate(buffer)));
+                        } else {
+                            buffer.position(buffer.position() + size);
+                        }
+                    }
+                    buffer.compact();
+                }
+            } catch (IOException e) {
+                // Client went away
+            } finally {
+                closeQuietly(socket);
+            }
+        }
+
+        /** Pose and pong writes come from two threads, so each message goes out whole. */
+        void write(byte[] bytes, int length) throws IOException {
+            writeLock.lock();
+            try {
+                out.write(bytes, 0, length);
+                out.flush();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // Already closed
+        }
+    }
+}
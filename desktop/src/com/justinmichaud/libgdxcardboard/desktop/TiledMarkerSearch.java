@@ -0,0 +1,134 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import boofcv.abst.fiducial.FiducialDetector;
+import boofcv.struct.calib.IntrinsicParameters;
+import boofcv.struct.image.GrayU8;
+
+/**
+ * Splits the frame into overlapping tiles and runs thresholding and square detection on each
+ * tile in parallel, one detector per worker thread. Markers seen by more than one tile are
+ * merged by id and centre distance, keeping the copy from the tile where the marker sits
+ * furthest from an inner tile edge. Thresholding near an inner edge sees a clipped window, so
+ * that copy is the one binarized exactly as in the full frame. With an overlap of at least a
+ * marker plus twice {@link MarkerSearch#THRESHOLD_RADIUS}, every marker has such a copy and
+ * the result matches a full-frame search.
+ */
+public class TiledMarkerSearch extends MarkerSearch {
+
+    private static final double MERGE_TOLERANCE = 8;
+
+    private final IntrinsicParameters intrinsic;
+    private final ForkJoinPool pool;
+    private final TileTask[] tiles;
+    private final RecursiveAction allTiles = new RecursiveAction() {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected void compute() {
+            invokeAll(tiles);
+        }
+    };
+
+    private final ThreadLocal<Worker> workers = new ThreadLocal<Worker>() {
+        @Override
+        protected Worker initialValue() {
+            return new Worker();
+        }
+    };
+
+    private final double[] margins = new double[Markers.CAPACITY];
+
+    private GrayU8 input;
+
+    public TiledMarkerSearch(IntrinsicParameters intrinsic, int columns, int rows, int overlap,
+                             int threads) {
+        this.intrinsic = intrinsic;
+        pool = new ForkJoinPool(threads);
+
+        int width = intrinsic.getWidth(), height = intrinsic.getHeight();
+        tiles = new TileTask[columns * rows];
+        for (int row = 0; row < rows; row++) {
+            for (int col = 0; col < columns; col++) {
+                int x0 = Math.max(0, col * width / columns - overlap / 2);
+                int y0 = Math.max(0, row * height / rows - overlap / 2);
+                int x1 = Math.min(width, (col + 1) * width / columns + overlap / 2);
+                int y1 = Math.min(height, (row + 1) * height / rows + overlap / 2);
+                tiles[row * columns + col] = new TileTask(x0, y0, x1, y1);
+            }
+        }
+    }
+
+    @Override
+    public void search(GrayU8 input, Markers found) {
+        this.input = input;
+        for (TileTask tile : tiles) {
+            tile.reinitialize();
+        }
+        allTiles.reinitialize();
+        pool.invoke(allTiles);
+        this.input = null;
+
+        found.reset();
+        for (TileTask tile : tiles) {
+            for (int i = 0; i < tile.found.size; i++) {
+                double margin = tile.margin(i);
+                int j = found.indexOf(tile.found, i, MERGE_TOLERANCE);
+                if (j < 0 && found.size < Markers.CAPACITY) {
+                    margins[found.size] = margin;
+                    found.add(tile.found.id[i], tile.found.centreX[i], tile.found.centreY[i],
+                            tile.found.width[i], tile.found.height[i]);
+                } else if (j >= 0 && margin > margins[j]) {
+                    margins[j] = margin;
+                    found.set(j, tile.found, i);
+                }
+            }
+        }
+        record(SearchMode.TILED, found.size > 0);
+    }
+
+    private class Worker {
+        final FiducialDetector<GrayU8> detector = createDetector(intrinsic);
+        final MarkerProjector projector = new MarkerProjector(intrinsic);
+        final IntrinsicParameters cropIntrinsic = new IntrinsicParameters();
+        final GrayU8 crop = new GrayU8();
+    }
+
+    private class TileTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        final int x0, y0, x1, y1;
+        final Markers found = new Markers();
+
+        TileTask(int x0, int y0, int x1, int y1) {
+            this.x0 = x0;
+            this.y0 = y0;
+            this.x1 = x1;
+            this.y1 = y1;
+        }
+
+        @Override
+        protected void compute() {
+            Worker worker = workers.get();
+            input.subimage(x0, y0, x1, y1, worker.crop);
+            MarkerProjector.crop(intrinsic, x0, y0, x1 - x0, y1 - y0, worker.cropIntrinsic);
+            worker.detector.setIntrinsic(worker.cropIntrinsic);
+            worker.detector.detect(worker.crop);
+
+            found.reset();
+            worker.projector.addAll(worker.detector, found);
+        }
+
+        /** Distance from marker i's extent to the nearest tile edge that is not an image edge. */
+        double margin(int i) {
+            double margin = Double.MAX_VALUE;
+            if (x0 > 0) margin = Math.min(margin, found.centreX[i] - found.width[i] - x0);
+            if (y0 > 0) margin = Math.min(margin, found.centreY[i] - found.height[i] - y0);
+            if (x1 < intrinsic.getWidth()) margin = Math.min(margin, x1 - found.centreX[i] - found.width[i]);
+            if (y1 < intrinsic.getHeight()) margin = Math.min(margin, y1 - found.centreY[i] - found.height[i]);
+            return margin;
+        }
+    }
+}
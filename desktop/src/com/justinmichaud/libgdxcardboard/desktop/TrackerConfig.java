@@ -0,0 +1,140 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+/**
+ * Tuning knobs for the desktop tracker, read from {@code -Dtracker.*} system properties.
+ */
+public class TrackerConfig {
+
+    public String source = "webcam";
+    public FrameSource.Pacing sourcePacing = FrameSource.Pacing.REAL_TIME;
+    public double sourceFps = 30;
+    public boolean sourceLoop = false;
+    public int captureWidth = 1920;
+    public int captureHeight = 1080;
+    public boolean showGui = true;
+    public int metricsPort = 6790;
+    public double poseMaxRate = 120;
+    public ServerMode serverMode = ServerMode.SELECTOR;
+    public int udpPort = 0;
+    public String sharedPoseFile = null;
+    public int sharedPoseHistory = 256;
+    public String journalFile = null;
+    public int journalCapacity = 1000000;
+    public double captureRingSeconds = 0;
+    public String captureRingDirectory = ".";
+    public int captureRingLostFrames = 30;
+    public double captureRingMinIntervalSeconds = 60;
+    public int captureRingMaxAutomatic = 10;
+
+    public int detectionInterval = 1;
+    public double cornerMaxError = 20;
+    public double cornerReinitDistance = 4;
+
+    public int detectionWorkers = 1;
+    public double workerMaxLatencyMillis = 100;
+
+    public boolean motionGate = false;
+    public double motionThreshold = 6;
+    public int motionCell = 16;
+    public double motionMargin = 1;
+    public double motionMaxSkipMillis = 250;
+
+    public FilterMode filterMode = FilterMode.BLEND;
+    public boolean filterPredict = false;
+    public double filterProcessNoise = 8;
+    public double filterMeasurementNoise = 1e-3;
+    public double filterMinCutoff = 1;
+    public double filterBeta = 2;
+    public double filterDerivativeCutoff = 3;
+
+    public SearchMode searchMode = SearchMode.FULL;
+    public int roiMaxMisses = 5;
+    public double roiMargin = 1.5;
+    public int pyramidLevels = 1;
+    public int pyramidMaxMisses = 5;
+    public int tileColumns = 2;
+    public int tileRows = 2;
+    public int tileOverlap = 300;
+    public int tileThreads = Runtime.getRuntime().availableProcessors();
+    public int[] resolutionLadder = { 1080, 720, 480 };
+    public double resolutionTargetRate = 0;
+    public double resolutionMinMarker = 32;
+    public int resolutionHoldFrames = 30;
+
+    public static TrackerConfig fromSystemProperties() {
+        TrackerConfig config = new TrackerConfig();
+        config.source = System.getProperty("tracker.source", config.source);
+        config.sourcePacing = FrameSource.Pacing.valueOf(System.getProperty(
+                "tracker.source.pacing", config.sourcePacing.name()).toUpperCase());
+        config.sourceFps = doubleProperty("tracker.source.fps", config.sourceFps);
+        config.sourceLoop = booleanProperty("tracker.source.loop", config.sourceLoop);
+        config.captureWidth = Integer.getInteger("tracker.capture.width", config.captureWidth);
+        config.captureHeight = Integer.getInteger("tracker.capture.height", config.captureHeight);
+        config.showGui = booleanProperty("tracker.gui", config.showGui);
+        config.metricsPort = Integer.getInteger("tracker.metrics.port", config.metricsPort);
+        config.poseMaxRate = doubleProperty("tracker.pose.maxRate", config.poseMaxRate);
+        config.serverMode = ServerMode.valueOf(
+                System.getProperty("tracker.server", config.serverMode.name()).toUpperCase());
+        config.udpPort = Integer.getInteger("tracker.udp.port", config.udpPort);
+        config.sharedPoseFile = System.getProperty("tracker.shm.file", config.sharedPoseFile);
+        config.sharedPoseHistory = Integer.getInteger("tracker.shm.history", config.sharedPoseHistory);
+        config.journalFile = System.getProperty("tracker.journal.file", config.journalFile);
+        config.journalCapacity = Integer.getInteger("tracker.journal.capacity", config.journalCapacity);
+        config.captureRingSeconds = doubleProperty("tracker.ring.seconds", config.captureRingSeconds);
+        config.captureRingDirectory = System.getProperty("tracker.ring.dir", config.captureRingDirectory);
+        config.captureRingLostFrames = Integer.getInteger("tracker.ring.lostFrames", config.captureRingLostFrames);
+        config.captureRingMinIntervalSeconds = doubleProperty("tracker.ring.minIntervalSeconds",
+                config.captureRingMinIntervalSeconds);
+        config.captureRingMaxAutomatic = Integer.getInteger("tracker.ring.maxAutomatic", config.captureRingMaxAutomatic);
+        config.detectionInterval = Integer.getInteger("tracker.detect.interval", config.detectionInterval);
+        config.cornerMaxError = doubleProperty("tracker.corners.maxError", config.cornerMaxError);
+        config.cornerReinitDistance = doubleProperty("tracker.corners.reinitDistance", config.cornerReinitDistance);
+        config.detectionWorkers = Integer.getInteger("tracker.workers", config.detectionWorkers);
+        config.workerMaxLatencyMillis = doubleProperty("tracker.workers.maxLatencyMillis", config.workerMaxLatencyMillis);
+        config.motionGate = booleanProperty("tracker.motion.gate", config.motionGate);
+        config.motionThreshold = doubleProperty("tracker.motion.threshold", config.motionThreshold);
+        config.motionCell = Integer.getInteger("tracker.motion.cell", config.motionCell);
+        config.motionMargin = doubleProperty("tracker.motion.margin", config.motionMargin);
+        config.motionMaxSkipMillis = doubleProperty("tracker.motion.maxSkipMillis", config.motionMaxSkipMillis);
+        config.filterMode = FilterMode.valueOf(
+                System.getProperty("tracker.filter", config.filterMode.name()).toUpperCase());
+        config.filterPredict = booleanProperty("tracker.filter.predict", config.filterPredict);
+        config.filterProcessNoise = doubleProperty("tracker.filter.processNoise", config.filterProcessNoise);
+        config.filterMeasurementNoise = doubleProperty("tracker.filter.measurementNoise", config.filterMeasurementNoise);
+        config.filterMinCutoff = doubleProperty("tracker.filter.minCutoff", config.filterMinCutoff);
+        config.filterBeta = doubleProperty("tracker.filter.beta", config.filterBeta);
+        config.filterDerivativeCutoff = doubleProperty("tracker.filter.derivativeCutoff", config.filterDerivativeCutoff);
+        config.searchMode = SearchMode.valueOf(
+                System.getProperty("tracker.search", config.searchMode.name()).toUpperCase());
+        config.roiMaxMisses = Integer.getInteger("tracker.roi.maxMisses", config.roiMaxMisses);
+        config.roiMargin = doubleProperty("tracker.roi.margin", config.roiMargin);
+        config.pyramidLevels = Integer.getInteger("tracker.pyramid.levels", config.pyramidLevels);
+        config.pyramidMaxMisses = Integer.getInteger("tracker.pyramid.maxMisses", config.pyramidMaxMisses);
+        config.tileColumns = Integer.getInteger("tracker.tiles.columns", config.tileColumns);
+        config.tileRows = Integer.getInteger("tracker.tiles.rows", config.tileRows);
+        config.tileOverlap = Integer.getInteger("tracker.tiles.overlap", config.tileOverlap);
+        config.tileThreads = Integer.getInteger("tracker.tiles.threads", config.tileThreads);
+        String ladder = System.getProperty("tracker.resolution.ladder");
+        if (ladder != null) {
+            String[] rungs = ladder.split(",");
+            config.resolutionLadder = new int[rungs.length];
+            for (int i = 0; i < rungs.length; i++) {
+                config.resolutionLadder[i] = Integer.parseInt(rungs[i].trim());
+            }
+        }
+        config.resolutionTargetRate = doubleProperty("tracker.resolution.targetRate", config.resolutionTargetRate);
+        config.resolutionMinMarker = doubleProperty("tracker.resolution.minMarker", config.resolutionMinMarker);
+        config.resolutionHoldFrames = Integer.getInteger("tracker.resolution.holdFrames", config.resolutionHoldFrames);
+        return config;
+    }
+
+    static boolean booleanProperty(String name, boolean defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Boolean.parseBoolean(value);
+    }
+
+    static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,143 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latency histograms and frame counters for the tracker, from capture to the socket write.
+ */
+public class TrackerMetrics {
+
+    public final LatencyHistogram captureToDetect = new LatencyHistogram();
+    public final LatencyHistogram detectToPublish = new LatencyHistogram();
+    public final LatencyHistogram publishToWrite = new LatencyHistogram();
+    public final LatencyHistogram clientRoundTrip = new LatencyHistogram();
+
+    private final AtomicLong detectedFrames = new AtomicLong();
+    private final AtomicLong trackedFrames = new AtomicLong();
+    private final AtomicLong lostFrames = new AtomicLong();
+    private final AtomicLong skippedFrames = new AtomicLong();
+    private final AtomicLong suppressedPoses = new AtomicLong();
+    private final AtomicLong heartbeats = new AtomicLong();
+
+    private long lastPublishNanos = 0;
+    private volatile double framePeriodNanos = 0;
+    private volatile double frameCpuNanos = 0;
+    private final AtomicLong visionCpuNanos = new AtomicLong();
+
+    private volatile long clockOffsetNanos = 0;
+    private final AtomicLong extrapolations = new AtomicLong();
+    private volatile double extrapolationError = 0;
+    private volatile double maxExtrapolationError = 0;
+
+    public void frameDetected() {
+        detectedFrames.incrementAndGet();
+    }
+
+    public void frameTracked() {
+        trackedFrames.incrementAndGet();
+    }
+
+    public void frameLost() {
+        lostFrames.incrementAndGet();
+    }
+
+    /** A frame that reused the previous pose because nothing moved. */
+    public void frameSkipped() {
+        skippedFrames.incrementAndGet();
+    }
+
+    /** CPU time the vision thread spent on one frame. */
+    public void frameCpu(long cpuNanos) {
+        visionCpuNanos.addAndGet(cpuNanos);
+        frameCpuNanos = frameCpuNanos == 0 ? cpuNanos : 0.9 * frameCpuNanos + 0.1 * cpuNanos;
+    }
+
+    /** A pose a client did not get because it moved less than that client's deadband. */
+    public void poseSuppressed() {
+        suppressedPoses.incrementAndGet();
+    }
+
+    /** A pose repeated to a client only to show the stream is still alive. */
+    public void heartbeatSent() {
+        heartbeats.incrementAndGet();
+    }
+
+    /** Called by the vision thread once per published pose. */
+    public void published(long publishNanos) {
+        if (lastPublishNanos != 0) {
+            double period = publishNanos - lastPublishNanos;
+            framePeriodNanos = framePeriodNanos == 0 ? period : 0.9 * framePeriodNanos + 0.1 * period;
+        }
+        lastPublishNanos = publishNanos;
+    }
+
+    /** A client's latest clock estimate, as reported in its ping. */
+    public void clockSync(long offsetNanos, long roundTripNanos) {
+        clockOffsetNanos = offsetNanos;
+        clientRoundTrip.record(roundTripNanos);
+    }
+
+    /** Distance between a pose extrapolated for some time and the pose later measured then. */
+    public void extrapolated(double error) {
+        long n = extrapolations.incrementAndGet();
+        extrapolationError = n == 1 ? error : 0.95 * extrapolationError + 0.05 * error;
+        if (error > maxExtrapolationError) maxExtrapolationError = error;
+    }
+
+    public long getClockOffsetNanos() {
+        return clockOffsetNanos;
+    }
+
+    public double getExtrapolationError() {
+        return extrapolationError;
+    }
+
+    public double getFramesPerSecond() {
+        double period = framePeriodNanos;
+        return period == 0 ? 0 : 1e9 / period;
+    }
+
+    public long getDetectedFrames() {
+        return detectedFrames.get();
+    }
+
+    public long getTrackedFrames() {
+        return trackedFrames.get();
+    }
+
+    public long getLostFrames() {
+        return lostFrames.get();
+    }
+
+    public long getSkippedFrames() {
+        return skippedFrames.get();
+    }
+
+    /** Share of one core the vision thread uses at the current frame rate. */
+    public double getVisionUtilization() {
+        double period = framePeriodNanos;
+        return period == 0 ? 0 : frameCpuNanos / period;
+    }
+
+    public void report(StringBuilder out) {
+        long detected = getDetectedFrames(), tracked = getTrackedFrames(), lost = getLostFrames();
+        long total = Math.max(1, detected + tracked + lost);
+        out.append(String.format("fps %.1f\n", getFramesPerSecond()));
+        out.append(String.format("frames detected=%d (%.1f%%) tracked=%d (%.1f%%) lost=%d (%.1f%%)\n",
+                detected, 100.0 * detected / total,
+                tracked, 100.0 * tracked / total,
+                lost, 100.0 * lost / total));
+        long skipped = getSkippedFrames();
+        out.append(String.format("motion skipped=%d (%.1f%%)\n", skipped, 100.0 * skipped / (total + skipped)));
+        out.append(String.format("cpu vision_per_frame=%.3fms vision_utilization=%.1f%% vision_total=%.1fs\n",
+                frameCpuNanos / 1e6, 100 * getVisionUtilization(), visionCpuNanos.get() / 1e9));
+        captureToDetect.report("latency capture_to_detect", out);
+        detectToPublish.report("latency detect_to_publish", out);
+        publishToWrite.report("latency publish_to_write", out);
+        clientRoundTrip.report("latency client_round_trip", out);
+        out.append(String.format("stream suppressed=%d heartbeats=%d\n", suppressedPoses.get(), heartbeats.get()));
+        out.append(String.format("clock client_offset=%.3fms\n", getClockOffsetNanos() / 1e6));
+        out.append(String.format("extrapolation count=%d error=%.4f max=%.4f\n",
+                extrapolations.get(), getExtrapolationError(), maxExtrapolationError));
+    }
+}
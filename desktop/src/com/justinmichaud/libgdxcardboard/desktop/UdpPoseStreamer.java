@@ -0,0 +1,138 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.justinmichaud.libgdxcardboard.PoseCodec;
+import com.justinmichaud.libgdxcardboard.UdpPoseReceiver;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sends every new pose as one sequence-numbered datagram to each subscribed endpoint. Clients
+ * subscribe by sending a subscribe message and stay subscribed while they keep sending it;
+ * nothing is ever retransmitted.
+ */
+public class UdpPoseStreamer implements Runnable {
+
+    private static final long SUBSCRIPTION_TIMEOUT_NANOS =
+            TimeUnit.MILLISECONDS.toNanos(5 * UdpPoseReceiver.KEEPALIVE_MS);
+
+    private final PosePublisher publisher;
+    private final DatagramChannel channel;
+    private final Selector selector;
+    private final Map<SocketAddress, Long> subscribers = new HashMap<SocketAddress, Long>();
+    private final Runnable wakeup = new Runnable() {
+        @Override
+        public void run() {
+            selector.wakeup();
+        }
+    };
+
+    private final PoseSample sample = new PoseSample();
+    private final ByteBuffer frame = ByteBuffer.allocate(PoseCodec.FRAME_SIZE);
+    private final ByteBuffer in = ByteBuffer.allocate(PoseCodec.FRAME_SIZE);
+    private long lastSequence = 0;
+
+    private volatile boolean running = true;
+
+    public UdpPoseStreamer(PosePublisher publisher, InetSocketAddress address) throws IOException {
+        this.publisher = publisher;
+        selector = Selector.open();
+        channel = DatagramChannel.open();
+        channel.socket().bind(address);
+        channel.configureBlocking(false);
+        channel.register(selector, SelectionKey.OP_READ);
+        publisher.addListener(wakeup);
+    }
+
+    public int getPort() {
+        return channel.socket().getLocalPort();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (running) {
+                selector.select(TimeUnit.NANOSECONDS.toMillis(SUBSCRIPTION_TIMEOUT_NANOS));
+                selector.selectedKeys().clear();
+
+                receive();
+                expire();
+                send();
+            }
+        } catch (IOException e) {
+            if (running) e.printStackTrace();
+        } finally {
+            publisher.removeListener(wakeup);
+            try {
+                channel.close();
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public void close() {
+        running = false;
+        selector.wakeup();
+    }
+
+    private void receive() throws IOException {
+        SocketAddress from;
+        while (true) {
+            in.clear();
+            from = channel.receive(in);
+            if (from == null) return;
+            in.flip();
+
+            int type = PoseCodec.peekType(in);
+            if (type == PoseCodec.TYPE_SUBSCRIBE) {
+                if (subscribers.put(from, System.nanoTime()) == null) {
+                    System.out.println("UDP subscriber " + from);
+                }
+            } else if (type == PoseCodec.TYPE_UNSUBSCRIBE) {
+                subscribers.remove(from);
+            }
+        }
+    }
+
+    private void expire() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<SocketAddress, Long>> entries = subscribers.entrySet().iterator();
+        while (entries.hasNext()) {
+            if (now - entries.next().getValue() > SUBSCRIPTION_TIMEOUT_NANOS) entries.remove();
+        }
+    }
+
+    /** A subscriber that cannot be sent to is dropped; the others still get the pose. */
+    private void send() {
+        publisher.read(sample);
+        if (sample.sequence == lastSequence) return;
+        lastSequence = sample.sequence;
+
+        frame.clear();
+        PoseCodec.encodePose(frame, sample.sequence, sample.captureNanos,
+                sample.visible, sample.x, sample.y, sample.z);
+        frame.flip();
+        Iterator<SocketAddress> addresses = subscribers.keySet().iterator();
+        while (addresses.hasNext()) {
+            SocketAddress subscriber = addresses.next();
+            frame.rewind();
+            try {
+                channel.send(frame, subscriber);
+            } catch (IOException e) {
+                System.out.println("UDP subscriber " + subscriber + " dropped: " + e.getMessage());
+                addresses.remove();
+            }
+        }
+    }
+}
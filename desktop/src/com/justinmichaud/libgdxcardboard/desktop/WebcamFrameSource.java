@@ -0,0 +1,42 @@
+package com.justinmichaud.libgdxcardboard.desktop;
+
+import com.github.sarxos.webcam.Webcam;
+
+import boofcv.io.webcamcapture.UtilWebcamCapture;
+import boofcv.struct.image.GrayU8;
+
+public class WebcamFrameSource extends FrameSource {
+
+    private final Webcam camera;
+    private final GrayIngest ingest;
+    private final int width, height;
+
+    public WebcamFrameSource(int requestedWidth, int requestedHeight) {
+        super(Pacing.REAL_TIME);
+        camera = UtilWebcamCapture.openDefault(requestedWidth, requestedHeight);
+        width = (int) camera.getViewSize().getWidth();
+        height = (int) camera.getViewSize().getHeight();
+        ingest = new GrayIngest(camera, width, height);
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public boolean read(GrayU8 output) {
+        ingest.read(output);
+        return true;
+    }
+
+    @Override
+    public void close() {
+        camera.close();
+    }
+}